@@ -0,0 +1,4 @@
+#!/bin/sh
+# Punto de entrada de Dockerfile.cds: classpath de jars + archivo CDS + inicialización AOT
+exec java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true $JAVA_OPTS \
+  -cp "$(cat classpath.txt)" com.sedapal.SedapalApplication "$@"
@@ -0,0 +1,28 @@
+#!/bin/sh
+# Compara arranque en frío y memoria de las imágenes JVM, JVM+CDS y nativa.
+# Requiere las imágenes construidas y las variables de entorno de BD/correo en ENV_FILE.
+# Uso: ENV_FILE=.env scripts/comparar-imagenes.sh [imagen ...]
+set -e
+
+ENV_FILE=${ENV_FILE:-.env}
+IMAGENES=${*:-"sedapal-backend:jvm sedapal-backend:cds sedapal-backend:native"}
+
+printf "%-28s %-22s %s\n" "IMAGEN" "ARRANQUE" "MEMORIA (RSS)"
+for imagen in $IMAGENES; do
+  nombre=comparar-$(echo "$imagen" | tr ':/' '--')
+  docker rm -f "$nombre" > /dev/null 2>&1 || true
+  docker run -d --name "$nombre" --env-file "$ENV_FILE" "$imagen" > /dev/null
+
+  # Esperar a que Spring informe el arranque (máx. 120 s)
+  arranque=""
+  i=0
+  while [ $i -lt 120 ] && [ -z "$arranque" ]; do
+    arranque=$(docker logs "$nombre" 2>&1 | grep -o 'Started SedapalApplication in [0-9.]* seconds' | grep -o '[0-9.]* seconds' || true)
+    [ -z "$arranque" ] && sleep 1
+    i=$((i + 1))
+  done
+
+  memoria=$(docker stats --no-stream --format '{{.MemUsage}}' "$nombre" | cut -d/ -f1)
+  printf "%-28s %-22s %s\n" "$imagen" "${arranque:-sin arrancar}" "$memoria"
+  docker rm -f "$nombre" > /dev/null
+done
@@ -1,24 +1,101 @@
 package com.sedapal.config;
 
+import com.sedapal.util.ContextoCliente;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Etapas del envío de correo (ver PipelineCorreo): render de HTML, limitado por CPU,
+ * y transporte al proveedor, limitado por la red. Cada etapa tiene su pool y su cola
+ * para ajustarlas por separado.
+ * <p>
+ * Las tareas @Scheduled usan el planificador de Spring Boot con
+ * spring.task.scheduling.pool.size hilos, para que una lenta no retrase a las demás.
+ */
 @Configuration
-@EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
-    @Bean(name = "mailExecutor")
-    public Executor mailExecutor() {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    // Hilos de render; 0 = uno por núcleo
+    @Value("${app.mail.render.hilos:0}")
+    private int hilosRender;
+
+    // Correos pendientes de render admitidos; si se llena, el envío se rechaza al instante
+    @Value("${app.mail.cola-capacidad:100}")
+    private int capacidadCola;
+
+    // Envíos simultáneos al proveedor de correo
+    @Value("${app.mail.max-concurrent:5}")
+    private int maxEnviosConcurrentes;
+
+    // Correos renderizados a la espera del transporte; si se llena, el render espera
+    @Value("${app.mail.transporte.cola:20}")
+    private int capacidadTransporte;
+
+    // Espera máxima por un hueco en la cola del transporte antes de rechazar el envío
+    @Value("${app.mail.transporte.espera-max:30s}")
+    private Duration esperaMaxTransporte;
+
+    @Bean(name = "mailTransporte")
+    public ThreadPoolTaskExecutor mailTransporte() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxEnviosConcurrentes);
+        executor.setMaxPoolSize(maxEnviosConcurrentes);
+        executor.setQueueCapacity(capacidadTransporte);
+        executor.setThreadNamePrefix("mail-tx-");
+        if (hilosVirtuales) {
+            // La espera de red no ocupa hilos de plataforma; el pool sigue limitando la concurrencia
+            executor.setThreadFactory(Thread.ofVirtual().name("mail-tx-", 0).factory());
+        }
+        executor.setTaskDecorator(ContextoCliente::propagar);
+        // Cola llena: el hilo de render espera un hueco (contrapresión), como mucho
+        // app.mail.transporte.espera-max; con el proveedor colgado el envío falla
+        executor.setRejectedExecutionHandler((tarea, pool) -> {
+            if (pool.isShutdown()) {
+                throw new TaskRejectedException("Transporte de correo detenido");
+            }
+            try {
+                if (!pool.getQueue().offer(tarea, esperaMaxTransporte.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new TaskRejectedException("Transporte de correo saturado: sin hueco en la cola tras "
+                            + esperaMaxTransporte.toSeconds() + " s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TaskRejectedException("Interrumpido esperando el transporte de correo", e);
+            }
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    // Se detiene antes que el transporte para que lo ya renderizado llegue a enviarse
+    @Bean(name = "mailRender")
+    @DependsOn("mailTransporte")
+    public ThreadPoolTaskExecutor mailRender() {
+        int hilos = hilosRender > 0 ? hilosRender : Runtime.getRuntime().availableProcessors();
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("mail-");
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("mail-render-");
+        // El resultado del envío se avisa al cliente que lo originó (X-Cliente-Id)
+        executor.setTaskDecorator(ContextoCliente::propagar);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.sedapal.config;
+
+import com.sedapal.sql.MonitorSql;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Dos pools Hikari: escritura (spring.datasource.*) y lectura (app.datasource.read.*).
+ * Las transacciones readOnly = true se enrutan al pool de lectura; el resto, al de escritura.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    public enum Ruta { ESCRITURA, LECTURA }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourceEscritura(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        ds.setPoolName("sedapal-escritura");
+        return ds;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.read")
+    public HikariDataSource dataSourceLectura() {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("sedapal-lectura");
+        return ds;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourceEscritura, HikariDataSource dataSourceLectura,
+                                 ObjectProvider<ObservationRegistry> observationRegistry,
+                                 ObjectProvider<MonitorSql> monitorSql) {
+        RoutingDataSource routing = new RoutingDataSource(observationRegistry, monitorSql);
+        routing.setTargetDataSources(Map.of(
+                Ruta.ESCRITURA, dataSourceEscritura,
+                Ruta.LECTURA, dataSourceLectura
+        ));
+        routing.setDefaultTargetDataSource(dataSourceEscritura);
+        routing.afterPropertiesSet();
+
+        // El pool se elige al ejecutar la primera sentencia, cuando ya se conoce
+        // si la transacción es de solo lectura. Los valores por defecto se fijan antes
+        // de inicializar el proxy para que no abra una conexión al crearse
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    static class RoutingDataSource extends AbstractRoutingDataSource {
+
+        private final ObjectProvider<ObservationRegistry> observationRegistry;
+        private final ObjectProvider<MonitorSql> monitorSql;
+
+        RoutingDataSource(ObjectProvider<ObservationRegistry> observationRegistry,
+                          ObjectProvider<MonitorSql> monitorSql) {
+            this.observationRegistry = observationRegistry;
+            this.monitorSql = monitorSql;
+        }
+
+        /**
+         * La espera por una conexión del pool queda como tramo en la traza de la petición;
+         * la conexión se entrega envuelta para contar sus sentencias (MonitorSql)
+         */
+        @Override
+        public Connection getConnection() throws SQLException {
+            DataSource destino = determineTargetDataSource();
+            String pool = destino instanceof HikariDataSource h ? h.getPoolName() : "desconocido";
+            Observation observation = Observation.createNotStarted("sedapal.traza.conexion",
+                            observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                    .contextualName("conexión " + pool)
+                    .lowCardinalityKeyValue("pool", pool)
+                    .start();
+            try {
+                Connection conexion = destino.getConnection();
+                MonitorSql monitor = monitorSql.getIfAvailable();
+                return monitor != null ? monitor.envolver(conexion) : conexion;
+            } catch (SQLException | RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? Ruta.LECTURA
+                    : Ruta.ESCRITURA;
+        }
+    }
+}
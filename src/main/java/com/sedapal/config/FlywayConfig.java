@@ -0,0 +1,28 @@
+package com.sedapal.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@Slf4j
+public class FlywayConfig {
+
+    /**
+     * Con Spring AOT (perfil fast-startup) la condición spring.flyway.enabled queda
+     * fijada al compilar; se vuelve a leer al arrancar para que FLYWAY_ENABLED=false
+     * siga omitiendo las migraciones.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        return flyway -> {
+            if (environment.getProperty("spring.flyway.enabled", Boolean.class, true)) {
+                flyway.migrate();
+            } else {
+                log.info("⏭️ Migraciones Flyway omitidas (spring.flyway.enabled=false)");
+            }
+        };
+    }
+}
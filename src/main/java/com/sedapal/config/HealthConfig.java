@@ -0,0 +1,25 @@
+package com.sedapal.config;
+
+import com.sedapal.service.DependencyProbeService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Indicador "dependencias" del grupo readiness (/readyz). Lee la instantánea de
+ * DependencyProbeService; liveness (/livez) no lo incluye para que una caída de la
+ * BD retire la instancia del balanceador sin provocar reinicios.
+ */
+@Configuration
+public class HealthConfig {
+
+    @Bean
+    public HealthIndicator dependenciasHealthIndicator(DependencyProbeService probeService) {
+        return () -> {
+            DependencyProbeService.Instantanea instantanea = probeService.instantanea();
+            Health.Builder builder = instantanea.lista() ? Health.up() : Health.outOfService();
+            return builder.withDetails(instantanea.detalle()).build();
+        };
+    }
+}
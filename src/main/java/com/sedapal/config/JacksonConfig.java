@@ -0,0 +1,26 @@
+package com.sedapal.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird sustituye la reflexión de getters/setters por accesores generados
+     * con LambdaMetafactory (entidades, DTO y mapas de respuesta). La imagen nativa
+     * no admite definir clases en tiempo de ejecución y las condiciones quedan fijadas
+     * por AOT, así que allí se registra un módulo vacío y se usa la serialización por defecto.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        if (NativeDetector.inNativeImage()) {
+            return new SimpleModule("sedapal-sin-blackbird");
+        }
+        return new BlackbirdModule();
+    }
+}
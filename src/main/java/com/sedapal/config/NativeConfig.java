@@ -0,0 +1,109 @@
+package com.sedapal.config;
+
+import com.sedapal.dto.UsuarioDTO;
+import com.sedapal.journal.EventoDiario;
+import com.sedapal.model.AdminSistema;
+import com.sedapal.model.Sistema;
+import com.sedapal.model.Usuario;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Metadatos de alcanzabilidad para la imagen nativa (perfil native).
+ * Spring AOT cubre los beans y los DTO de los controladores; aquí se declara
+ * lo que se usa por reflexión o como recurso fuera de su alcance.
+ */
+@Configuration
+@ImportRuntimeHints(NativeConfig.Hints.class)
+public class NativeConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private static final MemberCategory[] REFLEXION_COMPLETA = {
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_DECLARED_METHODS,
+                MemberCategory.DECLARED_FIELDS
+        };
+
+        // Modelo de SendGrid serializado con Jackson en Mail.build()
+        private static final List<String> SENDGRID = List.of(
+                "com.sendgrid.helpers.mail.Mail",
+                "com.sendgrid.helpers.mail.objects.ASM",
+                "com.sendgrid.helpers.mail.objects.Attachments",
+                "com.sendgrid.helpers.mail.objects.BccSettings",
+                "com.sendgrid.helpers.mail.objects.ClickTrackingSetting",
+                "com.sendgrid.helpers.mail.objects.Content",
+                "com.sendgrid.helpers.mail.objects.Email",
+                "com.sendgrid.helpers.mail.objects.FooterSetting",
+                "com.sendgrid.helpers.mail.objects.GoogleAnalyticsSetting",
+                "com.sendgrid.helpers.mail.objects.MailSettings",
+                "com.sendgrid.helpers.mail.objects.OpenTrackingSetting",
+                "com.sendgrid.helpers.mail.objects.Personalization",
+                "com.sendgrid.helpers.mail.objects.Setting",
+                "com.sendgrid.helpers.mail.objects.SpamCheckSetting",
+                "com.sendgrid.helpers.mail.objects.SubscriptionTrackingSetting",
+                "com.sendgrid.helpers.mail.objects.TrackingSettings"
+        );
+
+        // Proveedores y manejadores de JavaMail (Angus) cargados por nombre
+        private static final List<String> JAVAMAIL = List.of(
+                "org.eclipse.angus.mail.smtp.SMTPTransport",
+                "org.eclipse.angus.mail.smtp.SMTPSSLTransport",
+                "org.eclipse.angus.mail.handlers.text_plain",
+                "org.eclipse.angus.mail.handlers.text_html",
+                "org.eclipse.angus.mail.handlers.text_xml",
+                "org.eclipse.angus.mail.handlers.multipart_mixed",
+                "org.eclipse.angus.mail.handlers.message_rfc822"
+        );
+
+        // Appenders/encoders instanciados por logback-spring.xml
+        private static final List<String> LOGBACK = List.of(
+                "ch.qos.logback.classic.AsyncAppender",
+                "net.logstash.logback.encoder.LogstashEncoder"
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> entidad : List.of(Usuario.class, Sistema.class, AdminSistema.class)) {
+                hints.reflection().registerType(entidad, REFLEXION_COMPLETA);
+            }
+            hints.reflection().registerType(Usuario.Rol.class, REFLEXION_COMPLETA);
+            // Listados que se serializan a byte[] en RespuestaSerializadaService; AOT no los infiere de la firma
+            hints.reflection().registerType(UsuarioDTO.UsuarioResponse.class, REFLEXION_COMPLETA);
+            // Se serializa dentro de un Map en /actuator/eventos; AOT no lo infiere de la firma
+            hints.reflection().registerType(EventoDiario.class, REFLEXION_COMPLETA);
+
+            for (String tipo : SENDGRID) {
+                hints.reflection().registerType(TypeReference.of(tipo), REFLEXION_COMPLETA);
+            }
+            for (String tipo : JAVAMAIL) {
+                hints.reflection().registerType(TypeReference.of(tipo), REFLEXION_COMPLETA);
+            }
+            for (String tipo : LOGBACK) {
+                hints.reflection().registerType(TypeReference.of(tipo),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            // Proxies JDK de MonitorSql sobre las conexiones y sentencias
+            for (Class<?> jdbc : List.of(Connection.class, Statement.class, PreparedStatement.class,
+                    CallableStatement.class)) {
+                hints.proxies().registerJdkProxy(jdbc);
+            }
+
+            hints.resources().registerPattern("META-INF/javamail.*");
+            hints.resources().registerPattern("META-INF/mailcap");
+            hints.resources().registerPattern("db/migration/*.sql");
+            hints.resources().registerPattern("ehcache.xml");
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.sedapal.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -14,12 +16,11 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@Slf4j
 public class SecurityConfig {
 
     public SecurityConfig() {
-        System.out.println("\n\n========================================");
-        System.out.println("✅ SecurityConfig CARGADO - SEGURIDAD DESACTIVADA PARA DESARROLLO");
-        System.out.println("========================================\n\n");
+        log.warn("✅ SecurityConfig cargado - seguridad desactivada para desarrollo");
     }
 
     @Bean
@@ -42,6 +43,8 @@ public class SecurityConfig {
         configuration.addAllowedOrigin("https://segisedapal.programmersa.com");
         configuration.addAllowedMethod("*");
         configuration.addAllowedHeader("*");
+        // Para que el SPA lea cuánto esperar tras un 429 (RateLimitFilter)
+        configuration.addExposedHeader(HttpHeaders.RETRY_AFTER);
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
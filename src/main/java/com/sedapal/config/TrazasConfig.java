@@ -0,0 +1,19 @@
+package com.sedapal.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Las observaciones "sedapal.traza.*" existen solo para las trazas locales
+ * (RegistroTrazas); sin este filtro cada una generaría además un timer en Prometheus
+ * que duplica lo ya medido (http.server.requests, hikaricp, sedapal.mail.etapa).
+ */
+@Configuration
+public class TrazasConfig {
+
+    @Bean
+    public MeterFilter trazasSinMetricas() {
+        return MeterFilter.denyNameStartsWith("sedapal.traza");
+    }
+}
@@ -1,14 +1,16 @@
 package com.sedapal.controller;
 
-import com.sedapal.model.Sistema;
 import com.sedapal.service.AdminSistemaService;
+import com.sedapal.service.RespuestaSerializadaService;
+import com.sedapal.service.VersionRecursoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin-sistemas")
 @RequiredArgsConstructor
@@ -16,15 +18,33 @@ import java.util.List;
 public class AdminSistemaController {
 
     private final AdminSistemaService adminSistemaService;
+    private final VersionRecursoService versionRecursoService;
+    private final RespuestaSerializadaService respuestaSerializadaService;
 
     /**
      * Obtener sistemas asignados a un administrador
      * GET /api/admin-sistemas/admin/{idAdmin}
+     * Responde 304 sin consultar la BD si el If-None-Match coincide con la versión actual;
+     * si no, sirve el JSON ya serializado mientras la versión no cambie
      */
     @GetMapping("/admin/{idAdmin}")
-    public ResponseEntity<List<Sistema>> getSistemasByAdmin(@PathVariable Long idAdmin) {
-        log.info("📋 Obteniendo sistemas del admin ID: {}", idAdmin);
-        List<Sistema> sistemas = adminSistemaService.getSistemasByAdmin(idAdmin);
-        return ResponseEntity.ok(sistemas);
+    public ResponseEntity<byte[]> getSistemasByAdmin(
+            @PathVariable Long idAdmin,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String recurso = VersionRecursoService.sistemasDeAdmin(idAdmin);
+        String etag = versionRecursoService.etag(recurso);
+        if (versionRecursoService.noModificado(ifNoneMatch, etag)) {
+            // Mismo Vary que el 200 que valida: la respuesta puede ir comprimida o no
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        return respuestaSerializadaService.obtener(recurso, () -> {
+            log.info("📋 Obteniendo sistemas del admin ID: {}", idAdmin);
+            return adminSistemaService.getSistemasByAdmin(idAdmin);
+        }).aResponseEntity(acceptEncoding);
     }
 }
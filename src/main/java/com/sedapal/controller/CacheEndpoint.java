@@ -0,0 +1,64 @@
+package com.sedapal.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estadísticas de Hibernate en el puerto de gestión (/actuator/cachejpa), no en la API
+ * pública. Solo existe con hibernate.generate_statistics=true (perfil carga o
+ * HIBERNATE_ESTADISTICAS), que en producción queda desactivado por su coste por sesión.
+ */
+@Component
+@Endpoint(id = "cachejpa")
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+@RequiredArgsConstructor
+public class CacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Estadísticas de la caché de segundo nivel por región
+     * GET /actuator/cachejpa
+     */
+    @ReadOperation
+    public Map<String, Object> estadisticas() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = stats.getCacheRegionStatistics(region);
+            if (r != null) {
+                regiones.put(region, resumen(r.getHitCount(), r.getMissCount(), r.getPutCount()));
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("segundoNivel", resumen(stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(), stats.getSecondLevelCachePutCount()));
+        response.put("consultas", resumen(stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+        response.put("regiones", regiones);
+        response.put("sentenciasPreparadas", stats.getPrepareStatementCount());
+        return response;
+    }
+
+    private Map<String, Object> resumen(long hits, long misses, long puts) {
+        long total = hits + misses;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hits", hits);
+        m.put("misses", misses);
+        m.put("puts", puts);
+        m.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        return m;
+    }
+}
@@ -0,0 +1,47 @@
+package com.sedapal.controller;
+
+import com.sedapal.journal.DiarioEventos;
+import com.sedapal.journal.EventoDiario;
+import com.sedapal.journal.TipoEvento;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diario de eventos en el puerto de gestión (/actuator/eventos), no en la API
+ * pública: los eventos llevan los emails de las cuentas.
+ */
+@Component
+@Endpoint(id = "eventos")
+@RequiredArgsConstructor
+public class EventoEndpoint {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final DiarioEventos diarioEventos;
+
+    /**
+     * Consultar el diario de eventos. Con "desde" se lee en orden a partir de esa
+     * secuencia (para reprocesar); sin él, los más recientes primero
+     * GET /actuator/eventos?desde=&tipo=&email=&limite=
+     */
+    @ReadOperation
+    public Map<String, Object> consultar(@Nullable Long desde, @Nullable TipoEvento tipo,
+                                         @Nullable String email, @Nullable Integer limite) {
+        int n = Math.max(1, Math.min(limite != null ? limite : 100, LIMITE_MAXIMO));
+        List<EventoDiario> eventos = desde != null
+                ? diarioEventos.leerDesde(desde, tipo, email, n)
+                : diarioEventos.ultimos(tipo, email, n);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ultimaSecuencia", diarioEventos.ultimaSecuencia());
+        response.put("eventos", eventos);
+        return response;
+    }
+}
@@ -1,5 +1,8 @@
 package com.sedapal.controller;
 
+import com.sedapal.service.DependencyProbeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,13 +13,28 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/health")
+@RequiredArgsConstructor
 public class HealthController {
 
+    private final DependencyProbeService probeService;
+
+    /**
+     * Estado de la instancia según la última sonda de dependencias (503 si no está lista)
+     * GET /api/health
+     */
     @GetMapping
-    public ResponseEntity<Map<String, String>> healthCheck() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "OK");
-        response.put("message", "SEDAPAL Backend is running");
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> healthCheck() {
+        DependencyProbeService.Instantanea instantanea = probeService.instantanea();
+        Map<String, Object> response = new HashMap<>();
+        if (instantanea.lista()) {
+            response.put("status", "OK");
+            response.put("message", "SEDAPAL Backend is running");
+        } else {
+            response.put("status", "OUT_OF_SERVICE");
+            response.put("message", instantanea.motivo());
+        }
+        response.put("dependencias", instantanea.detalle());
+        return ResponseEntity.status(instantanea.lista() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(response);
     }
 }
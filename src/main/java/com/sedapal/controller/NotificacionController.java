@@ -1,10 +1,22 @@
 package com.sedapal.controller;
 
+import com.sedapal.model.TipoNotificacion;
 import com.sedapal.service.EmailService;
+import com.sedapal.service.EstadisticasNotificacionService;
+import com.sedapal.service.RecordatorioService;
+import com.sedapal.service.ResultadosEnvioService;
+import com.sedapal.util.ContextoCliente;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notificaciones")
@@ -13,6 +25,9 @@ import org.springframework.web.bind.annotation.*;
 public class NotificacionController {
 
     private final EmailService emailService;
+    private final EstadisticasNotificacionService estadisticasNotificacionService;
+    private final ResultadosEnvioService resultadosEnvioService;
+    private final RecordatorioService recordatorioService;
 
     /**
      * DTO para envío de notificación de actividad
@@ -45,6 +60,8 @@ public class NotificacionController {
                 request.trimestre(),
                 request.fechaMaxima()
             );
+            programarRecordatorios(request.email(), request.nombreUsuario(), request.nombreActividad(),
+                    request.sistemaAbrev(), request.equipoNombre(), request.trimestre(), request.fechaMaxima());
             
             return ResponseEntity.ok("Notificación enviada exitosamente");
         } catch (Exception e) {
@@ -81,6 +98,17 @@ public class NotificacionController {
 
     public record TestEmailRequest(String email) {}
 
+    /** Los recordatorios no deben hacer fallar el envío de la notificación */
+    private void programarRecordatorios(String email, String nombreUsuario, String nombreActividad,
+                                        String sistemaAbrev, String equipoNombre, int trimestre, String fechaMaxima) {
+        try {
+            recordatorioService.programarActividad(email, nombreUsuario, nombreActividad,
+                    sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
+        } catch (Exception e) {
+            log.error("❌ Error al registrar recordatorios para {}: {}", email, e.getMessage());
+        }
+    }
+
     // ================= Nuevas notificaciones =================
     public record UsuarioCumplioRequest(
         String adminEmail,
@@ -105,6 +133,12 @@ public class NotificacionController {
                 req.nombreActividad(), req.entregableNombre(), req.sistemaAbrev(),
                 req.equipoNombre(), req.fechaMaxima()
             );
+            // La actividad ya fue entregada: no recordar la fecha máxima
+            try {
+                recordatorioService.cancelarActividad(req.usuarioEmail(), req.nombreActividad());
+            } catch (Exception e) {
+                log.error("❌ Error al cancelar recordatorios de {}: {}", req.usuarioEmail(), e.getMessage());
+            }
             return ResponseEntity.ok("Notificación enviada al admin");
         } catch (Exception e) {
             log.error("❌ Error al notificar cumplimiento", e);
@@ -182,4 +216,74 @@ public class NotificacionController {
             return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
         }
     }
+
+    // ================= Estadísticas =================
+
+    /**
+     * Exportar el resumen de notificaciones por trimestre, sistema y equipo como CSV
+     * (lo volcado a BD: puede ir un intervalo de volcado por detrás)
+     * GET /api/notificaciones/estadisticas.csv?tipo=&trimestre=&sistema=
+     */
+    @GetMapping("/estadisticas.csv")
+    public ResponseEntity<StreamingResponseBody> exportarEstadisticas(
+            @RequestParam(required = false) TipoNotificacion tipo,
+            @RequestParam(required = false) Integer trimestre,
+            @RequestParam(required = false) String sistema) {
+        StreamingResponseBody cuerpo = salida ->
+                estadisticasNotificacionService.exportarCsv(salida, tipo, trimestre, sistema);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"estadisticas-notificaciones.csv\"")
+                .body(cuerpo);
+    }
+
+    // ================= Resultados en vivo =================
+
+    /**
+     * Obtener un id de cliente para los resultados en vivo. Lo genera el servidor: el
+     * stream solo admite ids emitidos aquí
+     * POST /api/notificaciones/stream/clientes
+     */
+    @PostMapping("/stream/clientes")
+    public ResponseEntity<Map<String, String>> emitirClienteId() {
+        String id = resultadosEnvioService.emitirId();
+        if (id == null) {
+            log.warn("⏱️ Id de cliente SSE no emitido: límite de ids vigentes");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "60").build();
+        }
+        return ResponseEntity.ok(Map.of("clienteId", id));
+    }
+
+    /**
+     * Suscribirse (SSE) a los resultados de los correos originados por este cliente.
+     * El id se obtiene antes con POST /stream/clientes; uno desconocido o caducado
+     * responde 404 y el cliente debe pedir otro. EventSource no permite cabeceras, por
+     * eso el id también se acepta como parámetro; las peticiones que disparan correos
+     * deben enviar el mismo valor en X-Cliente-Id.
+     * GET /api/notificaciones/stream?clienteId=
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<SseEmitter> suscribirResultados(
+            @RequestParam(required = false) String clienteId,
+            @RequestHeader(value = ContextoCliente.CABECERA, required = false) String clienteIdCabecera) {
+        String id = clienteId != null ? clienteId : clienteIdCabecera;
+        if (!ContextoCliente.valido(id)) {
+            log.warn("❌ Suscripción SSE con clienteId inválido");
+            return ResponseEntity.badRequest().build();
+        }
+        if (!resultadosEnvioService.emitido(id)) {
+            log.warn("❌ Suscripción SSE con clienteId no emitido o caducado");
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = resultadosEnvioService.suscribir(id);
+        if (emitter == null) {
+            log.warn("⏱️ Suscripción SSE rechazada para cliente {}: límite de conexiones", id);
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Evita que nginx acumule el flujo en su buffer
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
 }
@@ -0,0 +1,44 @@
+package com.sedapal.controller;
+
+import com.sedapal.traza.RegistroTrazas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Trazas en el puerto de gestión (/actuator/trazas), no en la API pública: los
+ * atributos de los tramos incluyen la URL, que lleva emails en /api/usuarios/{email}.
+ */
+@Component
+@Endpoint(id = "trazas")
+@RequiredArgsConstructor
+public class TrazaEndpoint {
+
+    private static final int LIMITE_MAXIMO = 200;
+
+    private final RegistroTrazas registroTrazas;
+
+    /**
+     * Trazas recientes con su desglose por tramos, las más nuevas primero
+     * GET /actuator/trazas?minMs=&limite=
+     */
+    @ReadOperation
+    public List<RegistroTrazas.TrazaVista> recientes(@Nullable Double minMs, @Nullable Integer limite) {
+        int n = limite != null ? limite : 20;
+        return registroTrazas.recientes(Math.max(1, Math.min(n, LIMITE_MAXIMO)), minMs != null ? minMs : 0);
+    }
+
+    /**
+     * Una traza por su id (cabecera X-Traza-Id de la respuesta); 404 si ya no está
+     * GET /actuator/trazas/{id}
+     */
+    @ReadOperation
+    public RegistroTrazas.TrazaVista buscar(@Selector String id) {
+        return registroTrazas.buscar(id).orElse(null);
+    }
+}
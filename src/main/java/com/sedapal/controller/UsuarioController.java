@@ -1,10 +1,16 @@
 package com.sedapal.controller;
 
 import com.sedapal.dto.UsuarioDTO;
+import com.sedapal.model.Usuario;
+import com.sedapal.service.BusquedaUsuariosService;
+import com.sedapal.service.RespuestaSerializadaService;
 import com.sedapal.service.UsuarioService;
+import com.sedapal.service.VersionRecursoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +25,9 @@ import java.util.Map;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final VersionRecursoService versionRecursoService;
+    private final RespuestaSerializadaService respuestaSerializadaService;
+    private final BusquedaUsuariosService busquedaUsuariosService;
 
     /**
      * Crear administrador
@@ -27,13 +36,8 @@ public class UsuarioController {
     @PostMapping("/admin")
     public ResponseEntity<?> crearAdministrador(@Valid @RequestBody UsuarioDTO.CrearAdminRequest request) {
         try {
-            System.out.println("\n\n========================================");
-            System.out.println("📝 RECIBIENDO REQUEST CREAR ADMIN");
-            System.out.println("Nombre: " + request.getNombre());
-            System.out.println("Apellido: " + request.getApellido());
-            System.out.println("Email: " + request.getEmail());
-            System.out.println("ID Sistema: " + request.getIdSistema());
-            System.out.println("========================================\n\n");
+            log.debug("📝 Request crear admin: nombre={}, apellido={}, email={}, idSistema={}",
+                    request.getNombre(), request.getApellido(), request.getEmail(), request.getIdSistema());
             
             log.info("📝 Creando administrador: {}", request.getEmail());
             
@@ -45,15 +49,8 @@ public class UsuarioController {
                 request.getIdSistema()
             );
             
-            System.out.println("\n✅ ADMIN CREADO EXITOSAMENTE\n");
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
-            System.out.println("\n\n========================================");
-            System.out.println("❌ ERROR AL CREAR ADMINISTRADOR");
-            System.out.println("Mensaje: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("========================================\n\n");
-            
             log.error("❌ Error al crear administrador: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -132,6 +129,20 @@ public class UsuarioController {
         }
     }
 
+    /**
+     * Buscar usuarios por nombre, apellido o email (autocompletado)
+     * GET /api/usuarios/buscar?q=juan pe&limite=10&rol=admin
+     * Se resuelve en memoria, sin consultar la BD; tolera errores de tecleo
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<List<UsuarioDTO.UsuarioResponse>> buscar(
+            @RequestParam("q") String consulta,
+            @RequestParam(defaultValue = "10") int limite,
+            @RequestParam(required = false) Usuario.Rol rol,
+            @RequestParam(defaultValue = "false") boolean incluirInactivos) {
+        return ResponseEntity.ok(busquedaUsuariosService.buscar(consulta, rol, !incluirInactivos, limite));
+    }
+
     /**
      * Obtener usuario por email
      * GET /api/usuarios/{email}
@@ -151,11 +162,25 @@ public class UsuarioController {
     /**
      * Obtener todos los administradores
      * GET /api/usuarios/admin/all
+     * Responde 304 sin consultar la BD si el If-None-Match coincide con la versión actual;
+     * si no, sirve el JSON ya serializado mientras la versión no cambie
      */
     @GetMapping("/admin/all")
-    public ResponseEntity<List<UsuarioDTO.UsuarioResponse>> obtenerAdministradores() {
-        List<UsuarioDTO.UsuarioResponse> admins = usuarioService.obtenerAdministradores();
-        return ResponseEntity.ok(admins);
+    public ResponseEntity<byte[]> obtenerAdministradores(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = versionRecursoService.etag(VersionRecursoService.ADMINISTRADORES);
+        if (versionRecursoService.noModificado(ifNoneMatch, etag)) {
+            // Mismo Vary que el 200 que valida: la respuesta puede ir comprimida o no
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        return respuestaSerializadaService
+                .obtener(VersionRecursoService.ADMINISTRADORES, usuarioService::obtenerAdministradores)
+                .aResponseEntity(acceptEncoding);
     }
 
     /**
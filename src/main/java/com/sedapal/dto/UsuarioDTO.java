@@ -4,6 +4,7 @@ import com.sedapal.model.Usuario;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -61,12 +62,15 @@ public class UsuarioDTO {
         private String email;
         
         @NotBlank(message = "El nombre de la actividad es requerido")
+        @Size(max = 255, message = "El nombre de la actividad no puede superar 255 caracteres")
         private String nombreActividad;
         
         @NotBlank(message = "La abreviatura del sistema es requerida")
+        @Size(max = 50, message = "La abreviatura del sistema no puede superar 50 caracteres")
         private String sistemaAbrev;
         
         @NotBlank(message = "El nombre del equipo es requerido")
+        @Size(max = 255, message = "El nombre del equipo no puede superar 255 caracteres")
         private String equipoNombre;
         
         @NotNull(message = "El trimestre es requerido")
@@ -0,0 +1,174 @@
+package com.sedapal.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite adaptativo de peticiones simultáneas sobre /api/** (algoritmo de gradiente).
+ * Compara la latencia reciente con la de referencia: si sube, el límite baja en
+ * proporción; si se mantiene, crece poco a poco. Lo que supera el límite se rechaza
+ * al instante con 503 en lugar de esperar el connection-timeout de Hikari.
+ * Health, actuator, OPTIONS y recursos estáticos quedan fuera. Las rutas que esperan
+ * al SMTP o al cliente (app.concurrency.sin-muestra) cuentan como en vuelo pero no
+ * aportan latencia, para no rebajar el límite de los endpoints rápidos.
+ * <p>
+ * Va detrás de la cadena de Spring Security para que el 503 lleve las cabeceras CORS
+ * y el navegador lo distinga de un fallo de red.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 5)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] CUERPO_503 =
+            "{\"error\":\"Servicio saturado, intente nuevamente\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final Counter rechazos;
+
+    @Value("${app.concurrency.enabled:true}")
+    private boolean habilitado;
+
+    private final int minimo;
+    private final int maximo;
+    // Latencia reciente admitida sobre la de referencia antes de reducir el límite
+    private final double tolerancia;
+    private final long ventanaNanos;
+    private final Set<String> sinMuestra;
+
+    private volatile double limite;
+
+    // Estado de la ventana de medición; se actualiza bajo el monitor de this
+    private long inicioVentana = System.nanoTime();
+    private long sumaVentana;
+    private int muestrasVentana;
+    private int maxEnVueloVentana;
+    private double rttCorto;
+    private double rttLargo;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${app.concurrency.inicial:20}") int inicial,
+                                  @Value("${app.concurrency.minimo:5}") int minimo,
+                                  @Value("${app.concurrency.maximo:200}") int maximo,
+                                  @Value("${app.concurrency.tolerancia:1.5}") double tolerancia,
+                                  @Value("${app.concurrency.ventana-ms:500}") long ventanaMs,
+                                  @Value("${app.concurrency.sin-muestra:}") Set<String> sinMuestra) {
+        this.limite = inicial;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.ventanaNanos = ventanaMs * 1_000_000L;
+        this.sinMuestra = sinMuestra;
+        this.rechazos = meterRegistry.counter("sedapal.concurrencia.rechazos");
+        Gauge.builder("sedapal.concurrencia.limite", this, f -> f.limite).register(meterRegistry);
+        Gauge.builder("sedapal.concurrencia.en_vuelo", enVuelo, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = RateLimitFilter.ruta(request);
+        return !habilitado
+                || "OPTIONS".equals(request.getMethod())
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        int actual = enVuelo.incrementAndGet();
+        if (actual > (int) limite) {
+            enVuelo.decrementAndGet();
+            rechazos.increment();
+            log.warn("⏱️ Petición rechazada por saturación: {} {} (en vuelo {}, límite {})",
+                    request.getMethod(), request.getRequestURI(), actual - 1, (int) limite);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(CUERPO_503);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            enVuelo.decrementAndGet();
+            // Las respuestas asíncronas (SSE) y las rutas ligadas al correo no representan
+            // latencia de servicio
+            if (!request.isAsyncStarted() && !sinMuestra.contains(RateLimitFilter.ruta(request))) {
+                registrar(System.nanoTime() - inicio, actual);
+            }
+        }
+    }
+
+    private synchronized void registrar(long rtt, int enVueloAlEmpezar) {
+        sumaVentana += rtt;
+        muestrasVentana++;
+        maxEnVueloVentana = Math.max(maxEnVueloVentana, enVueloAlEmpezar);
+
+        long ahora = System.nanoTime();
+        if (ahora - inicioVentana < ventanaNanos || muestrasVentana < 5) {
+            return;
+        }
+        double media = (double) sumaVentana / muestrasVentana;
+        int maxEnVuelo = maxEnVueloVentana;
+        inicioVentana = ahora;
+        sumaVentana = 0;
+        muestrasVentana = 0;
+        maxEnVueloVentana = 0;
+
+        ajustar(media, maxEnVuelo);
+    }
+
+    /** Gradient2: límite * (rttLargo * tolerancia / rttCorto) + margen de cola */
+    private void ajustar(double rttMedio, int maxEnVuelo) {
+        if (rttLargo == 0) {
+            rttCorto = rttMedio;
+            rttLargo = rttMedio;
+            return;
+        }
+        rttCorto = rttMedio;
+        rttLargo = rttLargo * 0.95 + rttMedio * 0.05;
+        // Tras una degradación larga la referencia se queda alta; se acerca a la actual
+        if (rttLargo / rttCorto > 2) {
+            rttLargo *= 0.9;
+        }
+
+        double actual = limite;
+        // Con poca carga no hay evidencia para subir el límite
+        if (maxEnVuelo < actual / 2 && rttCorto <= rttLargo * tolerancia) {
+            return;
+        }
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * rttLargo / rttCorto));
+        double nuevo = actual * gradiente + Math.sqrt(actual);
+        nuevo = actual * 0.8 + nuevo * 0.2;
+        nuevo = Math.max(minimo, Math.min(maximo, nuevo));
+
+        if ((int) nuevo != (int) actual) {
+            log.debug("🔄 Límite de concurrencia {} -> {} (rtt {} ms, referencia {} ms)",
+                    (int) actual, (int) nuevo,
+                    Math.round(rttCorto / 1_000_000), Math.round(rttLargo / 1_000_000));
+        }
+        limite = nuevo;
+    }
+}
@@ -0,0 +1,216 @@
+package com.sedapal.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limita por IP y por email los endpoints sin autenticación que consumen una
+ * conexión a BD o un envío de correo síncrono. Cada regla tiene además un cubo
+ * global para que muchas IP distintas tampoco agoten el pool de conexiones.
+ * Al superar el límite responde 429 con Retry-After.
+ * <p>
+ * Va detrás de la cadena de Spring Security para que el CorsFilter ya haya puesto
+ * las cabeceras CORS: sin ellas el navegador ve un error de red y no el 429.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_CUERPO = 16 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Regla> reglas;
+    private final ConcurrentHashMap<String, TokenBucket> cubos = new ConcurrentHashMap<>();
+    private volatile long ultimaPurga = System.nanoTime();
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean habilitado;
+
+    // Cubos distintos que se conservan. Solo se descartan los llenos (sin uso reciente):
+    // olvidar uno agotado lo rellenaría, así que al alcanzar el tope no se crean claves nuevas
+    @Value("${app.rate-limit.max-claves:10000}")
+    private int maxClaves;
+
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${app.rate-limit.login.por-ip:10/1m}") String loginPorIp,
+                           @Value("${app.rate-limit.login.por-email:5/1m}") String loginPorEmail,
+                           @Value("${app.rate-limit.login.global:20/1s}") String loginGlobal,
+                           @Value("${app.rate-limit.test-email.por-ip:3/1m}") String testPorIp,
+                           @Value("${app.rate-limit.test-email.por-email:3/1m}") String testPorEmail,
+                           @Value("${app.rate-limit.test-email.global:10/1m}") String testGlobal) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.reglas = Map.of(
+                "/api/usuarios/validar", new Regla("login",
+                        Limite.parse(loginPorIp), Limite.parse(loginPorEmail), Limite.parse(loginGlobal)),
+                "/api/notificaciones/test", new Regla("test-email",
+                        Limite.parse(testPorIp), Limite.parse(testPorEmail), Limite.parse(testGlobal))
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado
+                || !"POST".equals(request.getMethod())
+                || !reglas.containsKey(ruta(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        Regla regla = reglas.get(ruta(request));
+
+        byte[] cuerpo = request.getInputStream().readNBytes(MAX_CUERPO + 1);
+        if (cuerpo.length > MAX_CUERPO) {
+            responder(response, HttpStatus.PAYLOAD_TOO_LARGE, "Cuerpo de la petición demasiado grande", 0);
+            return;
+        }
+
+        // Primero los cubos propios del cliente: una petición rechazada por ellos no
+        // debe gastar el cubo global, que comparten todos los usuarios
+        long ahora = System.nanoTime();
+        String email = extraerEmail(cuerpo);
+        // Con el mapa lleno, las IP nuevas comparten un único cubo con el límite por IP
+        // y los emails nuevos quedan limitados solo por IP y global
+        TokenBucket porIp = cubo(regla.nombre() + "|ip|" + request.getRemoteAddr(), regla.porIp(), ahora);
+        if (porIp == null) {
+            porIp = cubos.computeIfAbsent(regla.nombre() + "|ip-desbordado",
+                    k -> nuevoCubo(regla.porIp(), ahora));
+        }
+        TokenBucket porEmail = email != null ? cubo(regla.nombre() + "|email|" + email, regla.porEmail(), ahora) : null;
+        TokenBucket global = cubos.computeIfAbsent(regla.nombre() + "|global", k -> nuevoCubo(regla.global(), ahora));
+
+        long espera = porIp.consumir(ahora);
+        if (espera == 0 && porEmail != null) {
+            espera = porEmail.consumir(ahora);
+            if (espera > 0) {
+                porIp.devolver();
+            }
+        }
+        if (espera == 0) {
+            espera = global.consumir(ahora);
+            if (espera > 0) {
+                porIp.devolver();
+                if (porEmail != null) {
+                    porEmail.devolver();
+                }
+            }
+        }
+
+        if (espera > 0) {
+            log.warn("⏱️ Límite de peticiones superado en {} (ip={}, email={})",
+                    regla.nombre(), request.getRemoteAddr(), email);
+            meterRegistry.counter("sedapal.rate_limit.rechazos", "regla", regla.nombre()).increment();
+            responder(response, HttpStatus.TOO_MANY_REQUESTS, "Demasiadas solicitudes, intente más tarde", espera);
+            return;
+        }
+
+        chain.doFilter(new CuerpoCacheadoRequest(request, cuerpo), response);
+    }
+
+    /** Cubo de la clave, o null si no existe y el mapa sigue en el tope tras purgar */
+    private TokenBucket cubo(String clave, Limite limite, long ahora) {
+        TokenBucket cubo = cubos.get(clave);
+        if (cubo == null) {
+            if (cubos.size() >= maxClaves) {
+                // Recorrer el mapa entero en cada clave nueva con el tope alcanzado saldría
+                // caro: como mucho una purga por segundo fuera del ciclo programado
+                if (ahora - ultimaPurga > 1_000_000_000L) {
+                    purgar(ahora);
+                }
+                if (cubos.size() >= maxClaves) {
+                    meterRegistry.counter("sedapal.rate_limit.claves_rechazadas").increment();
+                    return null;
+                }
+            }
+            cubo = cubos.computeIfAbsent(clave, k -> nuevoCubo(limite, ahora));
+        }
+        return cubo;
+    }
+
+    private static TokenBucket nuevoCubo(Limite limite, long ahora) {
+        return new TokenBucket(limite.capacidad(), limite.intervaloNanos(), ahora);
+    }
+
+    /**
+     * Ruta decodificada y sin parámetros ";", la misma que usa Spring MVC para elegir
+     * el controlador: con la URI en bruto, "/api/usuarios/%76alidar" esquivaría el límite
+     */
+    static String ruta(HttpServletRequest request) {
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+    /** Descarta los cubos llenos, que recrearlos no cambia; los agotados se conservan */
+    @Scheduled(fixedDelay = 60_000)
+    public void purgar() {
+        purgar(System.nanoTime());
+    }
+
+    private void purgar(long ahora) {
+        ultimaPurga = ahora;
+        cubos.entrySet().removeIf(e -> e.getValue().lleno(ahora));
+    }
+
+    private String extraerEmail(byte[] cuerpo) {
+        try {
+            JsonNode email = objectMapper.readTree(cuerpo).get("email");
+            if (email != null && email.isTextual() && !email.asText().isBlank()) {
+                return email.asText().trim().toLowerCase(Locale.ROOT);
+            }
+        } catch (IOException e) {
+            // Cuerpo no JSON: el controlador responde 400; se limita solo por IP
+        }
+        return null;
+    }
+
+    private void responder(HttpServletResponse response, HttpStatus status, String mensaje,
+                           long esperaNanos) throws IOException {
+        response.setStatus(status.value());
+        if (esperaNanos > 0) {
+            long segundos = Math.max(1, (esperaNanos + 999_999_999L) / 1_000_000_000L);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", mensaje));
+    }
+
+    record Regla(String nombre, Limite porIp, Limite porEmail, Limite global) {}
+
+    /** Capacidad y periodo de reposición, en formato "10/1m" */
+    record Limite(int capacidad, long intervaloNanos) {
+
+        static Limite parse(String valor) {
+            String[] partes = valor.trim().split("/");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Límite inválido (se espera cantidad/periodo): " + valor);
+            }
+            int capacidad = Integer.parseInt(partes[0].trim());
+            long periodo = DurationStyle.detectAndParse(partes[1].trim()).toNanos();
+            return new Limite(capacidad, periodo / capacidad);
+        }
+    }
+}
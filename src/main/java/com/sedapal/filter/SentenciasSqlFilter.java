@@ -0,0 +1,87 @@
+package com.sedapal.filter;
+
+import com.sedapal.sql.AmbitoSql;
+import com.sedapal.sql.MonitorSql;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sentencias SQL por petición sobre /api/**: distribución por ruta
+ * (sedapal.sql.sentencias) y aviso de posible N+1 cuando una misma sentencia se
+ * repite app.sql.n-mas-uno veces o más. El total se añade a la traza de la petición.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@Slf4j
+public class SentenciasSqlFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${app.sql.monitor.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.sql.n-mas-uno:5}")
+    private int umbralNMasUno;
+
+    public SentenciasSqlFilter(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        try (AmbitoSql ambito = AmbitoSql.abrir()) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                evaluar(request, ambito);
+            }
+        }
+    }
+
+    private void evaluar(HttpServletRequest request, AmbitoSql ambito) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+        DistributionSummary.builder("sedapal.sql.sentencias")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(ambito.total());
+
+        Observation observation = observationRegistry.getCurrentObservation();
+        if (observation != null) {
+            observation.highCardinalityKeyValue("sql.sentencias", Integer.toString(ambito.total()));
+        }
+
+        Map.Entry<String, Integer> repetida = ambito.masRepetida().orElse(null);
+        if (repetida != null && repetida.getValue() >= umbralNMasUno) {
+            Counter.builder("sedapal.sql.n_mas_uno").tag("uri", uri).register(meterRegistry).increment();
+            log.warn("🔄 Posible N+1 en {} {}: {} ejecuciones de \"{}\" ({} sentencias en total)",
+                    request.getMethod(), uri, repetida.getValue(), MonitorSql.redactar(repetida.getKey()),
+                    ambito.total());
+        }
+    }
+}
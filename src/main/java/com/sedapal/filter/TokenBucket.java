@@ -0,0 +1,53 @@
+package com.sedapal.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos expresado como GCRA: todo el estado es el instante
+ * teórico (nanos) en que el cubo vuelve a estar lleno, actualizado con un único CAS.
+ * Equivale a un cubo de {@code capacidad} fichas que se repone a razón de una
+ * ficha cada {@code intervaloNanos}.
+ */
+public final class TokenBucket {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong llenoEn;
+
+    public TokenBucket(int capacidad, long intervaloNanos, long ahora) {
+        this.intervaloNanos = intervaloNanos;
+        this.toleranciaNanos = intervaloNanos * capacidad;
+        this.llenoEn = new AtomicLong(ahora);
+    }
+
+    /**
+     * Consume una ficha. Devuelve 0 si se concede o los nanos que faltan
+     * para que haya una disponible.
+     */
+    public long consumir(long ahora) {
+        while (true) {
+            long actual = llenoEn.get();
+            long siguiente = Math.max(actual, ahora) + intervaloNanos;
+            long exceso = siguiente - ahora - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (llenoEn.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve una ficha consumida con {@link #consumir} cuando la petición se
+     * rechaza después por otro límite
+     */
+    public void devolver() {
+        llenoEn.addAndGet(-intervaloNanos);
+    }
+
+    /** Sin consumo pendiente: el cubo está lleno y se puede descartar */
+    public boolean lleno(long ahora) {
+        return llenoEn.get() <= ahora;
+    }
+}
@@ -0,0 +1,233 @@
+package com.sedapal.journal;
+
+import com.sedapal.model.TipoNotificacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Diario de eventos de cuentas y correos: solo se añade, en segmentos proyectados
+ * en memoria con registros de 256 bytes (ver {@link Segmento}). Registrar un evento
+ * es una copia a memoria bajo un monitor, sin escritura en BD; el sistema operativo
+ * vuelca las páginas y además se fuerza el volcado cada app.journal.flush-ms.
+ */
+@Component
+@Slf4j
+public class DiarioEventos {
+
+    @Value("${app.journal.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.journal.dir:./data/journal}")
+    private String directorio;
+
+    @Value("${app.journal.registros-por-segmento:262144}")
+    private int registrosPorSegmento;
+
+    // Segmentos que se conservan; los más antiguos se borran al rotar
+    @Value("${app.journal.max-segmentos:16}")
+    private int maxSegmentos;
+
+    private final ConcurrentSkipListMap<Long, Segmento> segmentos = new ConcurrentSkipListMap<>();
+    private Path ruta;
+    private Segmento actual;
+    private long siguiente = 1;
+
+    @PostConstruct
+    void abrir() throws IOException {
+        if (!habilitado) {
+            log.info("⏭️ Diario de eventos deshabilitado (app.journal.enabled=false)");
+            return;
+        }
+        ruta = Paths.get(directorio);
+        Files.createDirectories(ruta);
+        try (Stream<Path> ficheros = Files.list(ruta)) {
+            for (Path fichero : ficheros.filter(p -> p.getFileName().toString().endsWith(".seg")).toList()) {
+                String nombre = fichero.getFileName().toString();
+                long primera = Long.parseLong(nombre.substring("eventos-".length(), nombre.length() - ".seg".length()));
+                segmentos.put(primera, Segmento.abrir(ruta, primera, registrosPorSegmento));
+            }
+        }
+        if (segmentos.isEmpty()) {
+            segmentos.put(1L, Segmento.abrir(ruta, 1, registrosPorSegmento));
+        }
+        actual = segmentos.lastEntry().getValue();
+        siguiente = actual.siguienteSecuencia();
+        log.info("📋 Diario de eventos en {}: {} segmentos, siguiente secuencia {}",
+                ruta.toAbsolutePath(), segmentos.size(), siguiente);
+    }
+
+    // ======= Escritura =======
+
+    public void usuarioCreado(Long idUsuario, String email, String rol) {
+        trasCommit(TipoEvento.USUARIO_CREADO, null, idUsuario, null, 0, email, null, rol);
+    }
+
+    public void asignacionCreada(Long idAdmin, Long idSistema) {
+        trasCommit(TipoEvento.ASIGNACION_CREADA, null, idAdmin, idSistema, 0, null, null, null);
+    }
+
+    public void emailEncolado(TipoNotificacion tipo, String email, String sistema, int trimestre) {
+        registrar(TipoEvento.EMAIL_ENCOLADO, tipo, null, null, trimestre, email, sistema, null);
+    }
+
+    public void emailEnviado(TipoNotificacion tipo, String email, String asunto) {
+        registrar(TipoEvento.EMAIL_ENVIADO, tipo, null, null, 0, email, null, asunto);
+    }
+
+    public void emailFallido(TipoNotificacion tipo, String email, String motivo) {
+        registrar(TipoEvento.EMAIL_FALLIDO, tipo, null, null, 0, email, null, motivo);
+    }
+
+    /** Eventos de datos: solo se registran si la transacción confirma */
+    private void trasCommit(TipoEvento tipo, TipoNotificacion notificacion, Long idUsuario, Long idSistema,
+                            int trimestre, String email, String sistema, String detalle) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registrar(tipo, notificacion, idUsuario, idSistema, trimestre, email, sistema, detalle);
+                }
+            });
+        } else {
+            registrar(tipo, notificacion, idUsuario, idSistema, trimestre, email, sistema, detalle);
+        }
+    }
+
+    private void registrar(TipoEvento tipo, TipoNotificacion notificacion, Long idUsuario, Long idSistema,
+                           int trimestre, String email, String sistema, String detalle) {
+        if (!habilitado) {
+            return;
+        }
+        String emailNormalizado = email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+        long instante = System.currentTimeMillis();
+        try {
+            synchronized (this) {
+                if (actual.lleno()) {
+                    rotar();
+                }
+                actual.escribir(siguiente++, instante, tipo, notificacion,
+                        idUsuario == null ? 0 : idUsuario, idSistema == null ? 0 : idSistema, trimestre,
+                        emailNormalizado, sistema, detalle);
+            }
+        } catch (IOException | RuntimeException e) {
+            // El diario nunca debe hacer fallar la operación que lo registra
+            log.error("❌ No se pudo registrar el evento {} en el diario: {}", tipo, e.getMessage());
+        }
+    }
+
+    private void rotar() throws IOException {
+        actual.forzar();
+        actual = Segmento.abrir(ruta, siguiente, registrosPorSegmento);
+        segmentos.put(siguiente, actual);
+        log.info("🔄 Nuevo segmento del diario: {}", actual.ruta().getFileName());
+        while (segmentos.size() > maxSegmentos) {
+            Segmento antiguo = segmentos.pollFirstEntry().getValue();
+            antiguo.close();
+            Files.deleteIfExists(antiguo.ruta());
+            log.info("🔄 Segmento del diario eliminado: {}", antiguo.ruta().getFileName());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.journal.flush-ms:1000}")
+    public void volcar() {
+        Segmento s = actual;
+        if (s != null) {
+            s.forzar();
+        }
+    }
+
+    @PreDestroy
+    void cerrar() {
+        for (Segmento s : segmentos.values()) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                log.warn("❌ Error al cerrar {}: {}", s.ruta().getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    // ======= Lectura =======
+
+    /**
+     * Eventos con secuencia mayor o igual a {@code desde}, en orden. Filtros opcionales
+     * por tipo y email (comparado byte a byte sin decodificar el registro).
+     */
+    public List<EventoDiario> leerDesde(long desde, TipoEvento tipo, String email, int limite) {
+        List<EventoDiario> resultado = new ArrayList<>();
+        if (!habilitado) {
+            return resultado;
+        }
+        byte[] emailBytes = bytesEmail(email);
+        Long inicio = segmentos.floorKey(desde);
+        Map<Long, Segmento> desdeSegmento = inicio == null ? segmentos : segmentos.tailMap(inicio, true);
+        for (Segmento s : desdeSegmento.values()) {
+            int escritos = s.escritos();
+            int primero = (int) Math.max(0, desde - s.primeraSecuencia());
+            for (int i = primero; i < escritos && resultado.size() < limite; i++) {
+                if (coincide(s, i, tipo, emailBytes)) {
+                    resultado.add(s.leer(i));
+                }
+            }
+            if (resultado.size() >= limite) {
+                break;
+            }
+        }
+        return resultado;
+    }
+
+    /** Los {@code limite} eventos más recientes que cumplen los filtros, del más nuevo al más antiguo */
+    public List<EventoDiario> ultimos(TipoEvento tipo, String email, int limite) {
+        List<EventoDiario> resultado = new ArrayList<>();
+        if (!habilitado) {
+            return resultado;
+        }
+        byte[] emailBytes = bytesEmail(email);
+        for (Segmento s : segmentos.descendingMap().values()) {
+            for (int i = s.escritos() - 1; i >= 0 && resultado.size() < limite; i--) {
+                if (coincide(s, i, tipo, emailBytes)) {
+                    resultado.add(s.leer(i));
+                }
+            }
+            if (resultado.size() >= limite) {
+                break;
+            }
+        }
+        return resultado;
+    }
+
+    public long ultimaSecuencia() {
+        synchronized (this) {
+            return siguiente - 1;
+        }
+    }
+
+    private static boolean coincide(Segmento s, int indice, TipoEvento tipo, byte[] email) {
+        return (tipo == null || s.tipo(indice) == tipo)
+                && (email == null || s.emailIgual(indice, email));
+    }
+
+    private static byte[] bytesEmail(String email) {
+        return email == null || email.isBlank()
+                ? null
+                : email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+}
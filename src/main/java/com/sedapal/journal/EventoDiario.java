@@ -0,0 +1,21 @@
+package com.sedapal.journal;
+
+import com.sedapal.model.TipoNotificacion;
+
+import java.time.Instant;
+
+/**
+ * Evento leído del diario. Los campos que no aplican al tipo son null (o 0 en trimestre)
+ */
+public record EventoDiario(
+        long secuencia,
+        Instant instante,
+        TipoEvento tipo,
+        TipoNotificacion notificacion,
+        Long idUsuario,
+        Long idSistema,
+        int trimestre,
+        String email,
+        String sistema,
+        String detalle
+) {}
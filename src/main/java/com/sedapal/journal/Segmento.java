@@ -0,0 +1,194 @@
+package com.sedapal.journal;
+
+import com.sedapal.model.TipoNotificacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Fichero de segmento del diario, proyectado en memoria y dividido en registros
+ * de tamaño fijo. Un solo escritor (bajo el monitor de DiarioEventos) y lectores
+ * concurrentes que solo leen hasta {@link #escritos()}.
+ *
+ * <pre>
+ * offset  tamaño  campo
+ *   0       8     secuencia (0 = libre)
+ *   8       8     instante (epoch ms)
+ *  16       1     tipo de evento (ordinal)
+ *  17       1     tipo de notificación (ordinal + 1, 0 = ninguno)
+ *  18       2     trimestre
+ *  20       1     bytes de email
+ *  21       1     bytes de sistema
+ *  22       2     bytes de detalle
+ *  24       8     id de usuario (0 = ninguno)
+ *  32       8     id de sistema (0 = ninguno)
+ *  40      96     email (UTF-8)
+ * 136      16     sistema (UTF-8)
+ * 152     104     detalle (UTF-8)
+ * </pre>
+ */
+final class Segmento implements Closeable {
+
+    static final int TAM_REGISTRO = 256;
+
+    private static final int MAX_EMAIL = 96;
+    private static final int MAX_SISTEMA = 16;
+    private static final int MAX_DETALLE = 104;
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+    private static final TipoNotificacion[] NOTIFICACIONES = TipoNotificacion.values();
+
+    private final Path ruta;
+    private final long primeraSecuencia;
+    private final int capacidad;
+    private final FileChannel canal;
+    private final MappedByteBuffer buffer;
+    private volatile int escritos;
+
+    private Segmento(Path ruta, long primeraSecuencia, int capacidad) throws IOException {
+        this.ruta = ruta;
+        this.primeraSecuencia = primeraSecuencia;
+        this.capacidad = capacidad;
+        this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacidad * TAM_REGISTRO);
+        this.escritos = contarEscritos();
+    }
+
+    static Segmento abrir(Path directorio, long primeraSecuencia, int capacidad) throws IOException {
+        return new Segmento(directorio.resolve(nombre(primeraSecuencia)), primeraSecuencia, capacidad);
+    }
+
+    static String nombre(long primeraSecuencia) {
+        return String.format("eventos-%020d.seg", primeraSecuencia);
+    }
+
+    Path ruta() {
+        return ruta;
+    }
+
+    long primeraSecuencia() {
+        return primeraSecuencia;
+    }
+
+    int escritos() {
+        return escritos;
+    }
+
+    boolean lleno() {
+        return escritos >= capacidad;
+    }
+
+    /** Siguiente secuencia tras el último registro escrito */
+    long siguienteSecuencia() {
+        int n = escritos;
+        return n == 0 ? primeraSecuencia : buffer.getLong((n - 1) * TAM_REGISTRO) + 1;
+    }
+
+    /** Los registros se escriben en orden: búsqueda binaria del primer hueco */
+    private int contarEscritos() {
+        int bajo = 0;
+        int alto = capacidad;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (buffer.getLong(medio * TAM_REGISTRO) != 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    void escribir(long secuencia, long instante, TipoEvento tipo, TipoNotificacion notificacion,
+                  long idUsuario, long idSistema, int trimestre,
+                  String email, String sistema, String detalle) {
+        int base = escritos * TAM_REGISTRO;
+        buffer.putLong(base + 8, instante);
+        buffer.put(base + 16, (byte) tipo.ordinal());
+        buffer.put(base + 17, (byte) (notificacion == null ? 0 : notificacion.ordinal() + 1));
+        buffer.putShort(base + 18, (short) trimestre);
+        buffer.putLong(base + 24, idUsuario);
+        buffer.putLong(base + 32, idSistema);
+        buffer.put(base + 20, (byte) escribirTexto(base + 40, email, MAX_EMAIL));
+        buffer.put(base + 21, (byte) escribirTexto(base + 136, sistema, MAX_SISTEMA));
+        buffer.putShort(base + 22, (short) escribirTexto(base + 152, detalle, MAX_DETALLE));
+        // La secuencia se escribe al final: marca el registro como completo
+        buffer.putLong(base, secuencia);
+        escritos++;
+    }
+
+    EventoDiario leer(int indice) {
+        int base = indice * TAM_REGISTRO;
+        int notificacion = buffer.get(base + 17);
+        long idUsuario = buffer.getLong(base + 24);
+        long idSistema = buffer.getLong(base + 32);
+        return new EventoDiario(
+                buffer.getLong(base),
+                Instant.ofEpochMilli(buffer.getLong(base + 8)),
+                TIPOS[buffer.get(base + 16)],
+                notificacion == 0 ? null : NOTIFICACIONES[notificacion - 1],
+                idUsuario == 0 ? null : idUsuario,
+                idSistema == 0 ? null : idSistema,
+                buffer.getShort(base + 18),
+                leerTexto(base + 40, Byte.toUnsignedInt(buffer.get(base + 20))),
+                leerTexto(base + 136, Byte.toUnsignedInt(buffer.get(base + 21))),
+                leerTexto(base + 152, buffer.getShort(base + 22)));
+    }
+
+    /** Compara el email del registro sin decodificarlo */
+    boolean emailIgual(int indice, byte[] email) {
+        int base = indice * TAM_REGISTRO;
+        int longitud = Byte.toUnsignedInt(buffer.get(base + 20));
+        if (longitud != email.length) {
+            return false;
+        }
+        for (int i = 0; i < longitud; i++) {
+            if (buffer.get(base + 40 + i) != email[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    TipoEvento tipo(int indice) {
+        return TIPOS[buffer.get(indice * TAM_REGISTRO + 16)];
+    }
+
+    void forzar() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        forzar();
+        canal.close();
+    }
+
+    private int escribirTexto(int offset, String texto, int maximo) {
+        if (texto == null || texto.isEmpty()) {
+            return 0;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        int longitud = Math.min(bytes.length, maximo);
+        // No cortar un carácter multibyte a la mitad
+        while (longitud < bytes.length && longitud > 0 && (bytes[longitud] & 0xC0) == 0x80) {
+            longitud--;
+        }
+        buffer.put(offset, bytes, 0, longitud);
+        return longitud;
+    }
+
+    private String leerTexto(int offset, int longitud) {
+        if (longitud <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
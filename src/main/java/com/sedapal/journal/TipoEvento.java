@@ -0,0 +1,12 @@
+package com.sedapal.journal;
+
+/**
+ * Tipos de evento del diario. El ordinal se guarda en disco: añadir solo al final
+ */
+public enum TipoEvento {
+    USUARIO_CREADO,
+    ASIGNACION_CREADA,
+    EMAIL_ENCOLADO,
+    EMAIL_ENVIADO,
+    EMAIL_FALLIDO
+}
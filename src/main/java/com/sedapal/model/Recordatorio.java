@@ -0,0 +1,69 @@
+package com.sedapal.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tb_recordatorios")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Recordatorio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_recordatorio")
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "nombre_usuario")
+    private String nombreUsuario;
+
+    @Column(name = "nombre_actividad", nullable = false)
+    private String nombreActividad;
+
+    @Column(name = "sistema_abrev", length = 50)
+    private String sistemaAbrev;
+
+    @Column(name = "equipo_nombre")
+    private String equipoNombre;
+
+    @Column(nullable = false)
+    private Integer trimestre = 0;
+
+    @Column(name = "fecha_maxima", nullable = false)
+    private LocalDate fechaMaxima;
+
+    // Momento en que debe enviarse el recordatorio
+    @Column(name = "vence_en", nullable = false)
+    private LocalDateTime venceEn;
+
+    @Column(nullable = false, length = 15)
+    @Enumerated(EnumType.STRING)
+    private Estado estado = Estado.PENDIENTE;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    // ENVIANDO: reclamado por una instancia para enviarlo; fechaEnvio guarda cuándo
+    public enum Estado {
+        PENDIENTE, ENVIANDO, ENVIADO, FALLIDO, CANCELADO
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        if (estado == null) {
+            estado = Estado.PENDIENTE;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.sedapal.model;
+
+/**
+ * Tipos de correo que envía EmailService. El diario de eventos guarda el ordinal en
+ * disco (ver journal.Segmento): añadir solo al final, no reordenar ni eliminar
+ */
+public enum TipoNotificacion {
+    CREDENCIALES,
+    CREDENCIALES_ACTIVIDAD,
+    ACTIVIDAD_ASIGNADA,
+    USUARIO_CUMPLIO,
+    CONFORME,
+    USUARIO_CREADO,
+    ASIGNACION_SISTEMA,
+    PRUEBA,
+    RECORDATORIO
+}
@@ -1,7 +1,12 @@
 package com.sedapal.repository;
 
 import com.sedapal.model.AdminSistema;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,9 +15,14 @@ import java.util.Optional;
 @Repository
 public interface AdminSistemaRepository extends JpaRepository<AdminSistema, Long> {
     
-    List<AdminSistema> findByIdAdminAndEstado(Long idAdmin, Boolean estado);
+    // estado = true como literal, no como parámetro: con un plan genérico de sentencia
+    // preparada PostgreSQL no podría demostrar el WHERE estado de los índices parciales (V6)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT a FROM AdminSistema a WHERE a.idAdmin = :idAdmin AND a.estado = true")
+    List<AdminSistema> findActivasByIdAdmin(@Param("idAdmin") Long idAdmin);
     
-    List<AdminSistema> findByIdSistemaAndEstado(Long idSistema, Boolean estado);
+    @Query("SELECT a FROM AdminSistema a WHERE a.idSistema = :idSistema AND a.estado = true")
+    List<AdminSistema> findActivasByIdSistema(@Param("idSistema") Long idSistema);
     
     Optional<AdminSistema> findByIdAdminAndIdSistemaAndEstado(Long idAdmin, Long idSistema, Boolean estado);
     
@@ -0,0 +1,37 @@
+package com.sedapal.repository;
+
+import com.sedapal.model.Recordatorio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecordatorioRepository extends JpaRepository<Recordatorio, Long> {
+
+    List<Recordatorio> findByEstadoOrderByVenceEn(Recordatorio.Estado estado);
+
+    List<Recordatorio> findByEstadoAndVenceEnBefore(Recordatorio.Estado estado, LocalDateTime limite);
+
+    List<Recordatorio> findByEstadoAndFechaEnvioBefore(Recordatorio.Estado estado, LocalDateTime limite);
+
+    List<Recordatorio> findByEmailAndNombreActividadAndEstado(String email, String nombreActividad,
+                                                               Recordatorio.Estado estado);
+
+    boolean existsByEmailAndNombreActividadAndFechaMaximaAndVenceEn(String email, String nombreActividad,
+                                                                     LocalDate fechaMaxima, LocalDateTime venceEn);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Recordatorio r SET r.estado = :nuevo, r.fechaEnvio = :fecha "
+            + "WHERE r.id IN :ids AND r.estado = :actual")
+    int cambiarEstado(@Param("ids") Collection<Long> ids, @Param("actual") Recordatorio.Estado actual,
+                      @Param("nuevo") Recordatorio.Estado nuevo, @Param("fecha") LocalDateTime fecha);
+}
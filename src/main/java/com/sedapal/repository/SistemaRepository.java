@@ -1,7 +1,10 @@
 package com.sedapal.repository;
 
 import com.sedapal.model.Sistema;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,5 +12,10 @@ import java.util.List;
 @Repository
 public interface SistemaRepository extends JpaRepository<Sistema, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Sistema> findByEstado(Integer estado);
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Sistema> findAllById(Iterable<Long> ids);
 }
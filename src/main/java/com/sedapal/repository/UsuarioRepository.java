@@ -1,7 +1,10 @@
 package com.sedapal.repository;
 
 import com.sedapal.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,6 +17,7 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
     boolean existsByEmail(String email);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Usuario> findByRolAndEstado(Usuario.Rol rol, Boolean estado);
     
     Optional<Usuario> findByEmailAndContrasenaAndEstado(String email, String contrasena, Boolean estado);
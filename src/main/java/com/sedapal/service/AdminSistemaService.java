@@ -4,9 +4,11 @@ import com.sedapal.model.AdminSistema;
 import com.sedapal.model.Sistema;
 import com.sedapal.repository.AdminSistemaRepository;
 import com.sedapal.repository.SistemaRepository;
+import com.sedapal.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,13 +20,21 @@ public class AdminSistemaService {
 
     private final AdminSistemaRepository adminSistemaRepository;
     private final SistemaRepository sistemaRepository;
+    private final SingleFlight<Long, List<Sistema>> sistemasEnCurso = new SingleFlight<>();
 
     /**
-     * Obtener todos los sistemas asignados a un administrador
+     * Obtener todos los sistemas asignados a un administrador.
+     * Las llamadas simultáneas para el mismo admin comparten una sola consulta; las que
+     * esperan no abren conexión (el proxy lazy solo conecta al ejecutar una sentencia)
      */
+    @Transactional(readOnly = true)
     public List<Sistema> getSistemasByAdmin(Long idAdmin) {
+        return sistemasEnCurso.ejecutar(idAdmin, () -> cargarSistemasByAdmin(idAdmin));
+    }
+
+    private List<Sistema> cargarSistemasByAdmin(Long idAdmin) {
         // Obtener todas las asignaciones del admin
-        List<AdminSistema> asignaciones = adminSistemaRepository.findByIdAdminAndEstado(idAdmin, true);
+        List<AdminSistema> asignaciones = adminSistemaRepository.findActivasByIdAdmin(idAdmin);
         
         // Extraer los IDs de sistemas
         List<Long> sistemaIds = asignaciones.stream()
@@ -35,7 +45,7 @@ public class AdminSistemaService {
             return List.of();
         }
         
-        // Obtener los sistemas
-        return sistemaRepository.findAllById(sistemaIds);
+        // Obtener los sistemas (lista compartida entre las llamadas agrupadas)
+        return List.copyOf(sistemaRepository.findAllById(sistemaIds));
     }
 }
@@ -0,0 +1,313 @@
+package com.sedapal.service;
+
+import com.sedapal.dto.UsuarioDTO;
+import com.sedapal.model.Usuario;
+import com.sedapal.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Búsqueda de usuarios por nombre, apellido y email para el autocompletado del panel
+ * de administración. Índice en memoria: cada palabra del nombre y apellido (tal como
+ * los deja normalizarNombre) y del email, en minúsculas y sin tildes, apunta a los
+ * usuarios que la contienen. Los prefijos se resuelven con un rango del mapa ordenado;
+ * si no alcanzan el límite se completan con coincidencias aproximadas (hasta 1-2
+ * errores de tecleo entre las palabras que empiezan por la misma letra).
+ *
+ * Se carga al arrancar y se mantiene con las escrituras de UsuarioService (tras el
+ * commit) y con los avisos de InvalidacionService desde otras instancias.
+ */
+@Service
+@Slf4j
+public class BusquedaUsuariosService {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[\\s._+\\-@]+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    /** Usuario indexado: lo que se devuelve y las palabras bajo las que está */
+    private record Entrada(UsuarioDTO.UsuarioResponse usuario, Set<String> palabras, String orden) {}
+
+    private record Candidato(Entrada entrada, int puntos) {}
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final ConcurrentSkipListMap<String, Set<Long>> porPalabra = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Entrada> porId = new ConcurrentHashMap<>();
+
+    @Value("${app.busqueda.max-resultados:50}")
+    private int maxResultados;
+
+    // Palabras del índice examinadas como máximo por término
+    @Value("${app.busqueda.max-candidatos:2000}")
+    private int maxCandidatos;
+
+    public BusquedaUsuariosService(UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.escritura = new TransactionTemplate(transactionManager);
+        Gauge.builder("sedapal.busqueda.usuarios", porId, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        long inicio = System.nanoTime();
+        List<Usuario> usuarios;
+        try {
+            usuarios = lectura.execute(status -> usuarioRepository.findAll());
+        } catch (RuntimeException e) {
+            log.error("❌ No se pudo cargar el índice de búsqueda de usuarios: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            porPalabra.clear();
+            porId.clear();
+            usuarios.forEach(this::indexarAhora);
+        }
+        log.info("📋 Índice de búsqueda de usuarios: {} usuarios, {} palabras ({} ms)",
+                porId.size(), porPalabra.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Añadir o actualizar un usuario; dentro de una transacción se aplica tras el commit
+     */
+    public void indexar(Usuario usuario) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexarAhora(usuario);
+                }
+            });
+        } else {
+            indexarAhora(usuario);
+        }
+    }
+
+    /**
+     * Releer un usuario modificado en otra instancia. Se lee dentro de una transacción
+     * de escritura para que RoutingDataSource use el pool de escritura: findById es
+     * readOnly y, solo, iría a una réplica que podría no tener aún el cambio. Si no
+     * aparece se deja el índice como está (los usuarios no se borran, solo se desactivan)
+     */
+    public void recargar(Long id) {
+        escritura.execute(status -> usuarioRepository.findById(id)).ifPresentOrElse(this::indexarAhora,
+                () -> log.warn("⏭️ Usuario {} invalidado pero no encontrado; el índice de búsqueda no cambia", id));
+    }
+
+    /**
+     * Usuarios cuyo nombre, apellido o email empiezan (o casi) por los términos de la
+     * consulta; todos los términos deben coincidir. Primero coincidencias exactas de
+     * palabra, luego prefijos, luego aproximadas; a igualdad, por apellido y nombre.
+     * Consultas de menos de 2 letras no devuelven nada; el límite se acota a app.busqueda.max-resultados
+     */
+    public List<UsuarioDTO.UsuarioResponse> buscar(String consulta, Usuario.Rol rol, boolean soloActivos, int limite) {
+        // La consulta solo se parte por espacios: "ana.pe" o "ana@" buscan dentro del email completo
+        List<String> terminos = new ArrayList<>();
+        for (String t : ESPACIOS.split(plegar(consulta))) {
+            if (!t.isEmpty()) {
+                terminos.add(t);
+            }
+        }
+        if (terminos.isEmpty() || String.join("", terminos).length() < 2) {
+            return List.of();
+        }
+        int tope = Math.max(1, Math.min(limite, maxResultados));
+        List<Candidato> candidatos = candidatos(terminos, rol, soloActivos, false);
+        if (candidatos.size() < tope) {
+            // Pocas coincidencias por prefijo: se completan con las aproximadas
+            candidatos = candidatos(terminos, rol, soloActivos, true);
+        }
+        candidatos.sort(Comparator.comparingInt(Candidato::puntos).reversed()
+                .thenComparing(c -> c.entrada().orden()));
+        return candidatos.stream().limit(tope).map(c -> c.entrada().usuario()).toList();
+    }
+
+    private List<Candidato> candidatos(List<String> terminos, Usuario.Rol rol, boolean soloActivos, boolean aproximadas) {
+        Map<Long, Integer> puntos = null;
+        for (String termino : terminos) {
+            Map<Long, Integer> delTermino = coincidencias(termino, puntos == null ? null : puntos.keySet(), aproximadas);
+            if (puntos == null) {
+                puntos = delTermino;
+            } else {
+                Map<Long, Integer> acumulado = new HashMap<>();
+                for (Map.Entry<Long, Integer> e : delTermino.entrySet()) {
+                    Integer previo = puntos.get(e.getKey());
+                    if (previo != null) {
+                        acumulado.put(e.getKey(), previo + e.getValue());
+                    }
+                }
+                puntos = acumulado;
+            }
+            if (puntos.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Candidato> candidatos = new ArrayList<>();
+        for (Map.Entry<Long, Integer> e : puntos.entrySet()) {
+            Entrada entrada = porId.get(e.getKey());
+            if (entrada == null
+                    || (rol != null && entrada.usuario().getRol() != rol)
+                    || (soloActivos && !Boolean.TRUE.equals(entrada.usuario().getEstado()))) {
+                continue;
+            }
+            candidatos.add(new Candidato(entrada, e.getValue()));
+        }
+        return candidatos;
+    }
+
+    /**
+     * Puntos por usuario para un término: 3 palabra exacta, 2 prefijo, 1 aproximada.
+     * Con {@code dentroDe} solo se puntúan esos usuarios (términos posteriores al primero)
+     */
+    private Map<Long, Integer> coincidencias(String termino, Set<Long> dentroDe, boolean aproximadas) {
+        Map<Long, Integer> puntos = new HashMap<>();
+        int examinados = 0;
+        for (Map.Entry<String, Set<Long>> e : porPalabra.subMap(termino, true, termino + Character.MAX_VALUE, false).entrySet()) {
+            int valor = e.getKey().equals(termino) ? 3 : 2;
+            for (Long id : e.getValue()) {
+                if (dentroDe == null || dentroDe.contains(id)) {
+                    puntos.merge(id, valor, Math::max);
+                }
+            }
+            if (++examinados >= maxCandidatos) {
+                break;
+            }
+        }
+        if (!aproximadas || termino.length() < 3) {
+            return puntos;
+        }
+        // Aproximadas: se compara el término con el prefijo de igual longitud de cada palabra
+        int maxErrores = termino.length() <= 5 ? 1 : 2;
+        String inicial = termino.substring(0, 1);
+        examinados = 0;
+        for (Map.Entry<String, Set<Long>> e : porPalabra.subMap(inicial, true, inicial + Character.MAX_VALUE, false).entrySet()) {
+            String palabra = e.getKey();
+            String prefijo = palabra.length() > termino.length() ? palabra.substring(0, termino.length()) : palabra;
+            if (!prefijo.equals(termino) && distancia(termino, prefijo, maxErrores) <= maxErrores) {
+                for (Long id : e.getValue()) {
+                    if (dentroDe == null || dentroDe.contains(id)) {
+                        puntos.putIfAbsent(id, 1);
+                    }
+                }
+            }
+            if (++examinados >= maxCandidatos * 4) {
+                break;
+            }
+        }
+        return puntos;
+    }
+
+    private synchronized void indexarAhora(Usuario usuario) {
+        quitar(usuario.getId());
+        Set<String> palabras = new LinkedHashSet<>();
+        palabras.addAll(palabras(usuario.getNombre()));
+        palabras.addAll(palabras(usuario.getApellido()));
+        String email = plegar(usuario.getEmail());
+        if (!email.isEmpty()) {
+            // El email completo (para prefijos con "@") y sus partes sin el dominio
+            palabras.add(email);
+            int arroba = email.indexOf('@');
+            palabras.addAll(palabras(arroba < 0 ? email : email.substring(0, arroba)));
+        }
+        Entrada entrada = new Entrada(UsuarioDTO.UsuarioResponse.fromEntity(usuario), palabras,
+                plegar(usuario.getApellido()) + " " + plegar(usuario.getNombre()) + " " + email);
+        porId.put(usuario.getId(), entrada);
+        for (String palabra : palabras) {
+            porPalabra.computeIfAbsent(palabra, k -> ConcurrentHashMap.newKeySet()).add(usuario.getId());
+        }
+    }
+
+    private synchronized void quitar(Long id) {
+        Entrada previa = porId.remove(id);
+        if (previa == null) {
+            return;
+        }
+        for (String palabra : previa.palabras()) {
+            porPalabra.computeIfPresent(palabra, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static List<String> palabras(String texto) {
+        List<String> resultado = new ArrayList<>();
+        for (String p : SEPARADORES.split(plegar(texto))) {
+            if (!p.isEmpty()) {
+                resultado.add(p);
+            }
+        }
+        return resultado;
+    }
+
+    /** Minúsculas y sin tildes: "Núñez" -> "nunez" */
+    static String plegar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto.trim().toLowerCase(), Normalizer.Form.NFD);
+        return MARCAS.matcher(descompuesto).replaceAll("");
+    }
+
+    /** Distancia de edición con transposiciones ("jaun" -> "juan" es 1); corta en cuanto supera {@code maximo} */
+    private static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] previa = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previa[j] = j;
+        }
+        int minimoPrevio = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, previa[j] + 1), previa[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    actual[j] = Math.min(actual[j], anterior[j - 2] + 1);
+                }
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            // Una transposición puede apoyarse en la fila de dos atrás
+            if (minimoFila > maximo && minimoPrevio > maximo) {
+                return maximo + 1;
+            }
+            minimoPrevio = minimoFila;
+            int[] t = anterior;
+            anterior = previa;
+            previa = actual;
+            actual = t;
+        }
+        return previa[b.length()];
+    }
+}
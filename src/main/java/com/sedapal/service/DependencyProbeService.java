@@ -0,0 +1,186 @@
+package com.sedapal.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sondas de dependencias (base de datos, pools Hikari y cola de correo) ejecutadas
+ * en segundo plano. Los health checks solo leen la última instantánea, de modo que
+ * el balanceador puede consultarlos con cualquier frecuencia sin cargar la BD.
+ */
+@Service
+@Slf4j
+public class DependencyProbeService {
+
+    private final List<HikariDataSource> pools;
+    private final PipelineCorreo pipelineCorreo;
+
+    @Value("${app.health.intervalo-ms:5000}")
+    private long intervaloMs;
+
+    @Value("${app.health.ping-timeout-segundos:2}")
+    private int pingTimeoutSegundos;
+
+    // Fracción de la cola de correo a partir de la cual se deja de aceptar tráfico
+    @Value("${app.health.mail-umbral:0.8}")
+    private double umbralColaMail;
+
+    private volatile Instantanea ultima = Instantanea.inicial();
+
+    public DependencyProbeService(List<HikariDataSource> pools, PipelineCorreo pipelineCorreo) {
+        this.pools = pools;
+        this.pipelineCorreo = pipelineCorreo;
+    }
+
+    /** Última instantánea; se considera caducada si el refresco se ha detenido */
+    public Instantanea instantanea() {
+        Instantanea actual = ultima;
+        if (actual.tomadaEn() != null
+                && Duration.between(actual.tomadaEn(), Instant.now()).toMillis() > intervaloMs * 3) {
+            return actual.caducada();
+        }
+        return actual;
+    }
+
+    @Scheduled(fixedDelayString = "${app.health.intervalo-ms:5000}")
+    public void refrescar() {
+        Map<String, EstadoPool> estadoPools = new LinkedHashMap<>();
+        for (HikariDataSource pool : pools) {
+            estadoPools.put(pool.getPoolName(), sondearPool(pool));
+        }
+        EstadoColaMail colaMail = sondearColaMail();
+
+        Instantanea nueva = new Instantanea(Instant.now(), estadoPools, colaMail, umbralColaMail);
+        if (nueva.lista() != ultima.lista()) {
+            if (nueva.lista()) {
+                log.info("✅ Dependencias disponibles, instancia lista para recibir tráfico");
+            } else {
+                log.warn("❌ Instancia no lista: {}", nueva.motivo());
+            }
+        }
+        ultima = nueva;
+    }
+
+    private EstadoPool sondearPool(HikariDataSource pool) {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx == null) {
+            // Pool aún sin inicializar: la primera conexión lo arranca
+            return new EstadoPool(ping(pool), 0, 0, 0, pool.getMaximumPoolSize());
+        }
+        int activas = mx.getActiveConnections();
+        int inactivas = mx.getIdleConnections();
+        int pendientes = mx.getThreadsAwaitingConnection();
+        int maximo = pool.getMaximumPoolSize();
+
+        // Con el pool agotado la sonda tendría que esperar un connectionTimeout completo
+        // y competir con las peticiones; se conserva el último resultado del ping
+        Boolean alcanzable;
+        if (inactivas == 0 && activas >= maximo) {
+            EstadoPool anterior = ultima.pools().get(pool.getPoolName());
+            alcanzable = anterior != null ? anterior.alcanzable() : null;
+        } else {
+            alcanzable = ping(pool);
+        }
+        return new EstadoPool(alcanzable, activas, inactivas, pendientes, maximo);
+    }
+
+    private boolean ping(HikariDataSource pool) {
+        try (Connection conn = pool.getConnection()) {
+            return conn.isValid(pingTimeoutSegundos);
+        } catch (Exception e) {
+            log.warn("❌ Sonda de BD fallida en {}: {}", pool.getPoolName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /** Correos pendientes de render y de transporte frente a la capacidad de ambas colas */
+    private EstadoColaMail sondearColaMail() {
+        return new EstadoColaMail(pipelineCorreo.enEspera(), pipelineCorreo.capacidad());
+    }
+
+    public record EstadoPool(Boolean alcanzable, int activas, int inactivas, int pendientes, int maximo) {
+
+        /** Todas las conexiones en uso y peticiones esperando una */
+        public boolean saturado() {
+            return activas >= maximo && pendientes > 0;
+        }
+    }
+
+    public record EstadoColaMail(int enEspera, int capacidad) {
+
+        public double ocupacion() {
+            return capacidad > 0 ? (double) enEspera / capacidad : 0;
+        }
+    }
+
+    public record Instantanea(Instant tomadaEn, Map<String, EstadoPool> pools,
+                              EstadoColaMail colaMail, double umbralColaMail) {
+
+        static Instantanea inicial() {
+            return new Instantanea(null, Map.of(), new EstadoColaMail(0, 0), 1);
+        }
+
+        Instantanea caducada() {
+            return new Instantanea(null, pools, colaMail, umbralColaMail);
+        }
+
+        public boolean lista() {
+            return motivo() == null;
+        }
+
+        /** Motivo por el que la instancia no debe recibir tráfico, o null si está lista */
+        public String motivo() {
+            if (tomadaEn == null) {
+                return "sin sondeo reciente";
+            }
+            for (Map.Entry<String, EstadoPool> e : pools.entrySet()) {
+                if (Boolean.FALSE.equals(e.getValue().alcanzable())) {
+                    return "BD no alcanzable (" + e.getKey() + ")";
+                }
+                if (e.getValue().saturado()) {
+                    return "pool saturado (" + e.getKey() + ")";
+                }
+            }
+            if (colaMail.ocupacion() >= umbralColaMail) {
+                return "cola de correo al " + Math.round(colaMail.ocupacion() * 100) + "%";
+            }
+            return null;
+        }
+
+        public Map<String, Object> detalle() {
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("tomadaEn", tomadaEn);
+            Map<String, Object> estadoPools = new LinkedHashMap<>();
+            pools.forEach((nombre, p) -> {
+                Map<String, Object> d = new LinkedHashMap<>();
+                d.put("alcanzable", p.alcanzable());
+                d.put("activas", p.activas());
+                d.put("inactivas", p.inactivas());
+                d.put("pendientes", p.pendientes());
+                d.put("maximo", p.maximo());
+                estadoPools.put(nombre, d);
+            });
+            detalle.put("pools", estadoPools);
+            detalle.put("colaMail", Map.of(
+                    "enEspera", colaMail.enEspera(),
+                    "capacidad", colaMail.capacidad(),
+                    "ocupacion", Math.round(colaMail.ocupacion() * 1000) / 1000.0));
+            String motivo = motivo();
+            if (motivo != null) {
+                detalle.put("motivo", motivo);
+            }
+            return detalle;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.sedapal.service;
 
+import com.sedapal.journal.DiarioEventos;
+import com.sedapal.model.Recordatorio;
+import com.sedapal.model.TipoNotificacion;
 import com.sedapal.model.Usuario;
+import com.sedapal.util.ContextoCliente;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,7 +16,21 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import org.springframework.scheduling.annotation.Async;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 // SendGrid
 import com.sendgrid.Method;
@@ -27,6 +47,11 @@ import com.sendgrid.helpers.mail.objects.Email;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final DiarioEventos diarioEventos;
+    private final EstadisticasNotificacionService estadisticas;
+    private final ResultadosEnvioService resultadosEnvio;
+    private final PipelineCorreo pipelineCorreo;
+    private final ObservationRegistry observationRegistry;
 
     @Value("${spring.mail.from:${spring.mail.username:noreply@sedapal.com}}")
     private String fromEmail;
@@ -37,20 +62,21 @@ public class EmailService {
     @Value("${sendgrid.api.key:}")
     private String sendgridApiKey;
 
+    // Espera máxima del envío síncrono (endpoint de prueba)
+    @Value("${app.mail.sync-timeout:30s}")
+    private Duration timeoutSync;
+
+    // La misma zona con la que RecordatorioService programa los envíos
+    @Value("${app.recordatorios.zona:America/Lima}")
+    private ZoneId zonaRecordatorios;
+
     /**
      * Enviar credenciales de acceso por email
      */
-    @Async("mailExecutor")
     public void enviarCredenciales(String email, String nombre, String apellido, 
                                    String contrasena, Usuario.Rol rol) {
-        try {
-            String html = construirMensajeHtml(nombre, apellido, email, contrasena, rol);
-            enviarHtml(email, obtenerAsunto(rol), html);
-            log.info("✅ Email enviado exitosamente a: {}", email);
-        } catch (Exception e) {
-            log.error("❌ Error al enviar email a {}: {}", email, e.getMessage());
-            throw new RuntimeException("Error al enviar email: " + e.getMessage());
-        }
+        encolarHtml(Envio.de(TipoNotificacion.CREDENCIALES), email, obtenerAsunto(rol),
+                () -> construirMensajeHtml(nombre, apellido, email, contrasena, rol));
     }
 
     /**
@@ -155,22 +181,16 @@ public class EmailService {
     /**
      * Enviar notificación de nueva actividad asignada
      */
-    @Async("mailExecutor")
     public void enviarNotificacionActividad(String email, String nombreUsuario, 
                                            String nombreActividad, String sistemaAbrev,
                                            String equipoNombre, int trimestre, 
                                            String fechaMaxima) {
-        try {
-            log.debug("📋 Parámetros recibidos: email={}, nombreUsuario={}, nombreActividad={}, sistemaAbrev={}, equipoNombre={}, trimestre={}, fechaMaxima={}",
-                     email, nombreUsuario, nombreActividad, sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
-            String html = construirMensajeActividadHtml(nombreUsuario, nombreActividad,
-                          sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
-            enviarHtml(email, "📝 Nueva Actividad Asignada - Sistema SEDAPAL", html);
-            log.info("✅ Email de actividad enviado a: {}", email);
-        } catch (Exception e) {
-            log.error("❌ Error al enviar email de actividad a {}: {}", email, e.getMessage());
-            throw new RuntimeException("Error al enviar email: " + e.getMessage());
-        }
+        log.debug("📋 Parámetros recibidos: email={}, nombreUsuario={}, nombreActividad={}, sistemaAbrev={}, equipoNombre={}, trimestre={}, fechaMaxima={}",
+                 email, nombreUsuario, nombreActividad, sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
+        encolarHtml(new Envio(TipoNotificacion.ACTIVIDAD_ASIGNADA, sistemaAbrev, equipoNombre, trimestre),
+                email, "📝 Nueva Actividad Asignada - Sistema SEDAPAL",
+                () -> construirMensajeActividadHtml(nombreUsuario, nombreActividad,
+                        sistemaAbrev, equipoNombre, trimestre, fechaMaxima));
     }
 
     /**
@@ -277,21 +297,15 @@ public class EmailService {
     /**
      * Enviar credenciales con actividad asignada (usuario nuevo + actividad)
      */
-    @Async("mailExecutor")
     public void enviarCredencialesConActividad(String email, String nombre, String apellido, 
                                                String contrasena, String nombreActividad, 
                                                String sistemaAbrev, String equipoNombre, 
                                                int trimestre, String fechaMaxima) {
-        try {
-            String html = construirMensajeCredencialesConActividadHtml(nombre, apellido, email,
-                          contrasena, nombreActividad, sistemaAbrev, equipoNombre, trimestre,
-                          fechaMaxima);
-            enviarHtml(email, "🔐 Credenciales de Acceso y Nueva Actividad - Sistema SEDAPAL", html);
-            log.info("✅ Email de credenciales + actividad enviado a: {}", email);
-        } catch (Exception e) {
-            log.error("❌ Error al enviar email a {}: {}", email, e.getMessage());
-            throw new RuntimeException("Error al enviar email: " + e.getMessage());
-        }
+        encolarHtml(new Envio(TipoNotificacion.CREDENCIALES_ACTIVIDAD, sistemaAbrev, equipoNombre, trimestre),
+                email, "🔐 Credenciales de Acceso y Nueva Actividad - Sistema SEDAPAL",
+                () -> construirMensajeCredencialesConActividadHtml(nombre, apellido, email,
+                        contrasena, nombreActividad, sistemaAbrev, equipoNombre, trimestre,
+                        fechaMaxima));
     }
 
     /**
@@ -416,34 +430,103 @@ public class EmailService {
     /**
      * Enviar email simple (para testing)
      */
-    @Async("mailExecutor")
     public void enviarEmailSimple(String to, String subject, String text) {
-        try {
-            sendTextSync(to, subject, text);
-            log.info("✅ Email simple enviado a: {}", to);
-        } catch (Exception e) {
-            log.error("❌ Error al enviar email simple: {}", e.getMessage());
-            throw new RuntimeException("Error al enviar email: " + e.getMessage());
-        }
+        encolarTexto(Envio.de(TipoNotificacion.PRUEBA), to, subject, text);
     }
 
     /**
-     * Envío síncrono (para endpoint de prueba): devuelve excepción si falla.
+     * Envío síncrono (para endpoint de prueba): pasa por el pipeline pero espera
+     * el resultado, como mucho app.mail.sync-timeout, y devuelve la excepción si falla.
+     * Al vencer la espera el correo sigue en el pipeline y puede salir después.
      */
     public void enviarEmailSimpleSync(String to, String subject, String text) {
-        sendTextSync(to, subject, text);
+        try {
+            encolarTexto(Envio.de(TipoNotificacion.PRUEBA), to, subject, text)
+                    .get(timeoutSync.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Sin respuesta del envío de correo tras " + timeoutSync.toSeconds() + " s", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrumpido esperando el envío de correo", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
         log.info("✅ Email simple (sync) enviado a: {}", to);
     }
 
-    // ======= Enrutadores a SendGrid o SMTP =======
-    private void enviarHtml(String to, String subject, String html) {
-        if (sendgridApiKey != null && !sendgridApiKey.isBlank()) {
-            enviarHtmlSendGrid(to, subject, html);
+    // ======= Encolado en el pipeline (render -> transporte) =======
+
+    private CompletableFuture<Void> encolarHtml(Envio envio, String to, String subject, Supplier<String> html) {
+        CompletableFuture<Void> futuro = pipelineCorreo.enviar(html, h -> enviarHtml(envio, to, subject, h));
+        seguir(envio, to, futuro);
+        return futuro;
+    }
+
+    private CompletableFuture<Void> encolarTexto(Envio envio, String to, String subject, String text) {
+        CompletableFuture<Void> futuro = pipelineCorreo.enviar(() -> text, t -> sendTextSync(envio, to, subject, t));
+        seguir(envio, to, futuro);
+        return futuro;
+    }
+
+    /** Registrar el encolado y dejar constancia en el log del resultado */
+    private void seguir(Envio envio, String to, CompletableFuture<Void> futuro) {
+        diarioEventos.emailEncolado(envio.tipo(), to, envio.sistema(), envio.trimestre());
+        futuro.whenComplete((ok, error) -> {
+            if (error == null) {
+                log.info("✅ Email {} enviado a: {}", envio.tipo(), to);
+            } else {
+                log.error("❌ Error al enviar email {} a {}: {}", envio.tipo(), to, causa(error).getMessage());
+            }
+        });
+    }
+
+    private static Throwable causa(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Datos del envío para el diario y las estadísticas (sistema, equipo y trimestre si aplican)
+     */
+    private record Envio(TipoNotificacion tipo, String sistema, String equipo, int trimestre) {
+        static Envio de(TipoNotificacion tipo) {
+            return new Envio(tipo, null, null, 0);
+        }
+    }
+
+    private void registrarResultado(Envio envio, String to, String subject, RuntimeException error) {
+        estadisticas.registrar(envio.tipo(), envio.trimestre(), envio.sistema(), envio.equipo(), error == null);
+        if (error == null) {
+            diarioEventos.emailEnviado(envio.tipo(), to, subject);
         } else {
-            enviarHtmlSmtp(to, subject, html);
+            diarioEventos.emailFallido(envio.tipo(), to, error.getMessage());
+        }
+        resultadosEnvio.publicar(ContextoCliente.actual(), envio.tipo(),
+                error == null ? null : error.getMessage());
+    }
+
+    // ======= Enrutadores a SendGrid o SMTP =======
+    private void enviarHtml(Envio envio, String to, String subject, String html) {
+        try {
+            if (sendgridApiKey != null && !sendgridApiKey.isBlank()) {
+                llamarProveedor("sendgrid", () -> enviarHtmlSendGrid(to, subject, html));
+            } else {
+                llamarProveedor("smtp", () -> enviarHtmlSmtp(to, subject, html));
+            }
+            registrarResultado(envio, to, subject, null);
+        } catch (RuntimeException e) {
+            registrarResultado(envio, to, subject, e);
+            throw e;
         }
     }
 
+    /** Tramo de traza con la llamada al proveedor, dentro del tramo de transporte */
+    private void llamarProveedor(String proveedor, Runnable llamada) {
+        Observation.createNotStarted("sedapal.traza.proveedor", observationRegistry)
+                .contextualName(proveedor)
+                .lowCardinalityKeyValue("proveedor", proveedor)
+                .observe(llamada);
+    }
+
     private void enviarHtmlSmtp(String to, String subject, String html) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
@@ -476,7 +559,18 @@ public class EmailService {
         }
     }
 
-    private void sendTextSync(String to, String subject, String text) {
+    private void sendTextSync(Envio envio, String to, String subject, String text) {
+        try {
+            boolean sendgrid = sendgridApiKey != null && !sendgridApiKey.isBlank();
+            llamarProveedor(sendgrid ? "sendgrid" : "smtp", () -> enviarTexto(to, subject, text));
+            registrarResultado(envio, to, subject, null);
+        } catch (RuntimeException e) {
+            registrarResultado(envio, to, subject, e);
+            throw e;
+        }
+    }
+
+    private void enviarTexto(String to, String subject, String text) {
         if (sendgridApiKey != null && !sendgridApiKey.isBlank()) {
             try {
                 Mail mail = new Mail(new Email(fromEmail), subject, new Email(to), new Content("text/plain", text));
@@ -504,50 +598,48 @@ public class EmailService {
     }
 
     // ================= Nuevos correos de notificación =================
-    @Async("mailExecutor")
     public void enviarNotificacionUsuarioCumplio(String adminEmail, String usuarioNombre, String usuarioEmail,
                                                 String nombreActividad, String entregableNombre, String sistemaAbrev,
                                                 String equipoNombre, String fechaMaxima) {
-        try {
-            String html = construirHtmlNotificacionUsuarioCumplio(usuarioNombre, usuarioEmail, nombreActividad,
-                    entregableNombre, sistemaAbrev, equipoNombre, fechaMaxima);
-            enviarHtml(adminEmail, "🕓 Revisión requerida: " + nombreActividad, html);
-            log.info("✅ Notificación enviada al admin {} por cumplimiento de {}", adminEmail, usuarioEmail);
-        } catch (Exception e) {
-            throw new RuntimeException("Error al enviar notificación: " + e.getMessage());
-        }
+        encolarHtml(new Envio(TipoNotificacion.USUARIO_CUMPLIO, sistemaAbrev, equipoNombre, 0),
+                adminEmail, "🕓 Revisión requerida: " + nombreActividad,
+                () -> construirHtmlNotificacionUsuarioCumplio(usuarioNombre, usuarioEmail, nombreActividad,
+                        entregableNombre, sistemaAbrev, equipoNombre, fechaMaxima));
     }
 
-    @Async("mailExecutor")
     public void enviarNotificacionConforme(java.util.List<String> usuariosDestino,
                                            java.util.List<String> superadminsDestino,
                                            String nombreActividad, String entregableNombre,
                                            String sistemaAbrev, String equipoNombre, String fechaMaxima) {
-        try {
-            java.util.List<String> destinatarios = new java.util.ArrayList<>();
-            if (usuariosDestino != null) destinatarios.addAll(usuariosDestino);
-            if (superadminsDestino != null) destinatarios.addAll(superadminsDestino);
-            String html = construirHtmlNotificacionConforme(nombreActividad, entregableNombre, sistemaAbrev, equipoNombre, fechaMaxima);
-            for (String to : destinatarios) {
-                enviarHtml(to, "✅ Actividad validada: " + nombreActividad, html);
-            }
-            log.info("✅ Notificación de conforme enviada a {} destinatarios", destinatarios.size());
-        } catch (Exception e) {
-            throw new RuntimeException("Error al enviar notificación: " + e.getMessage());
+        List<String> destinatarios = new ArrayList<>();
+        if (usuariosDestino != null) destinatarios.addAll(usuariosDestino);
+        if (superadminsDestino != null) destinatarios.addAll(superadminsDestino);
+        if (destinatarios.isEmpty()) {
+            return;
+        }
+        // Mismo HTML para todos: se renderiza una vez en la etapa de render
+        Envio envio = new Envio(TipoNotificacion.CONFORME, sistemaAbrev, equipoNombre, 0);
+        String asunto = "✅ Actividad validada: " + nombreActividad;
+        String[] html = new String[1];
+        List<PipelineCorreo.Trabajo<String>> trabajos = new ArrayList<>();
+        for (String to : destinatarios) {
+            trabajos.add(new PipelineCorreo.Trabajo<>(
+                    () -> html[0] != null ? html[0] : (html[0] = construirHtmlNotificacionConforme(
+                            nombreActividad, entregableNombre, sistemaAbrev, equipoNombre, fechaMaxima)),
+                    h -> enviarHtml(envio, to, asunto, h)));
+        }
+        List<CompletableFuture<Void>> futuros = pipelineCorreo.enviarLote(trabajos);
+        for (int i = 0; i < destinatarios.size(); i++) {
+            seguir(envio, destinatarios.get(i), futuros.get(i));
         }
     }
 
     // ================= Usuario creado con equipo/gerencia =================
-    @Async("mailExecutor")
     public void enviarUsuarioCreado(String email, String nombreUsuario, String contrasena,
                                     String gerenciaNombre, String equipoNombre) {
-        try {
-            String html = construirHtmlUsuarioCreado(nombreUsuario, email, contrasena, gerenciaNombre, equipoNombre);
-            enviarHtml(email, "👤 Usuario creado - Accesos y pertenencia", html);
-            log.info("✅ Notificación de usuario creado enviada a {}", email);
-        } catch (Exception e) {
-            throw new RuntimeException("Error al enviar notificación: " + e.getMessage());
-        }
+        encolarHtml(new Envio(TipoNotificacion.USUARIO_CREADO, null, equipoNombre, 0),
+                email, "👤 Usuario creado - Accesos y pertenencia",
+                () -> construirHtmlUsuarioCreado(nombreUsuario, email, contrasena, gerenciaNombre, equipoNombre));
     }
 
     private String construirFooterLogo() {
@@ -605,15 +697,10 @@ public class EmailService {
         """.formatted(nombreUsuario, email, contrasena, gerenciaNombre, equipoNombre, construirFooterLogo());
     }
 
-    @Async("mailExecutor")
     public void enviarAsignacionSistema(String email, String nombreAdmin, String sistemaAbrev, String sistemaNombre) {
-        try {
-            String html = construirHtmlAsignacionSistema(nombreAdmin, sistemaAbrev, sistemaNombre);
-            enviarHtml(email, "🛠️ Sistema asignado: " + (sistemaAbrev != null ? sistemaAbrev : ""), html);
-            log.info("✅ Notificación de asignación de sistema enviada a {}", email);
-        } catch (Exception e) {
-            throw new RuntimeException("Error al enviar notificación: " + e.getMessage());
-        }
+        encolarHtml(new Envio(TipoNotificacion.ASIGNACION_SISTEMA, sistemaAbrev, null, 0),
+                email, "🛠️ Sistema asignado: " + (sistemaAbrev != null ? sistemaAbrev : ""),
+                () -> construirHtmlAsignacionSistema(nombreAdmin, sistemaAbrev, sistemaNombre));
     }
 
     private String construirHtmlAsignacionSistema(String nombreAdmin, String sistemaAbrev, String sistemaNombre) {
@@ -695,4 +782,68 @@ public class EmailService {
                 equipoNombre != null ? equipoNombre : "N/A",
                 fecha, construirFooterLogo());
     }
+
+    // ================= Recordatorios de fecha máxima =================
+
+    /**
+     * Enviar un lote de recordatorios ocupando un solo hueco de la cola de render.
+     * Devuelve los ids enviados; los demás fallaron.
+     */
+    public CompletableFuture<Set<Long>> enviarRecordatorios(List<Recordatorio> lote) {
+        List<PipelineCorreo.Trabajo<String>> trabajos = new ArrayList<>(lote.size());
+        for (Recordatorio r : lote) {
+            Envio envio = new Envio(TipoNotificacion.RECORDATORIO, r.getSistemaAbrev(), r.getEquipoNombre(), r.getTrimestre());
+            String asunto = "⏰ Recordatorio: " + r.getNombreActividad() + " vence el " + r.getFechaMaxima();
+            trabajos.add(new PipelineCorreo.Trabajo<>(() -> construirHtmlRecordatorio(r),
+                    h -> enviarHtml(envio, r.getEmail(), asunto, h)));
+        }
+        List<CompletableFuture<Void>> futuros = pipelineCorreo.enviarLote(trabajos);
+        Set<Long> enviados = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < lote.size(); i++) {
+            Recordatorio r = lote.get(i);
+            diarioEventos.emailEncolado(TipoNotificacion.RECORDATORIO, r.getEmail(), r.getSistemaAbrev(), r.getTrimestre());
+            futuros.set(i, futuros.get(i).whenComplete((ok, error) -> {
+                if (error == null) {
+                    enviados.add(r.getId());
+                } else {
+                    log.error("❌ Error al enviar recordatorio a {}: {}", r.getEmail(), causa(error).getMessage());
+                }
+            }));
+        }
+        return CompletableFuture.allOf(futuros.stream().map(f -> f.exceptionally(e -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(v -> {
+                    log.info("✅ Recordatorios enviados: {}/{}", enviados.size(), lote.size());
+                    return Set.copyOf(enviados);
+                });
+    }
+
+    private String construirHtmlRecordatorio(Recordatorio r) {
+        String loginUrl = frontendUrl + "/login";
+        long dias = ChronoUnit.DAYS.between(LocalDate.now(zonaRecordatorios), r.getFechaMaxima());
+        String plazo = dias <= 0 ? "vence hoy" : dias == 1 ? "vence mañana" : "vence en " + dias + " días";
+        return """
+        <div style=\"font-family:Arial,sans-serif;color:#111827\">
+          <div style=\"background:linear-gradient(135deg,#f59e0b 0%%,#d97706 100%%);color:#fff;padding:24px;border-radius:10px 10px 0 0;text-align:center\">
+            <h2 style=\"margin:0;font-size:22px\">⏰ Recordatorio de fecha máxima</h2>
+            <div style=\"opacity:.9;font-size:12px\">Sistema de Gestión SEDAPAL</div>
+          </div>
+          <div style=\"background:#ffffff;padding:24px;border:1px solid #e5e7eb;border-top:none;border-radius:0 0 10px 10px\">
+            <p>Hola <strong>%s</strong>, tu actividad <strong>%s</strong>.</p>
+            <div style=\"background:#f0f9ff;border-left:4px solid #0284c7;padding:16px;border-radius:8px;margin:16px 0\">
+              <div style=\"font-weight:600;color:#0369a1;font-size:16px;margin-bottom:8px\">📌 %s</div>
+              <div style=\"display:flex;justify-content:space-between;border-bottom:1px solid #e5e7eb;padding:8px 0\"><span style=\"color:#6b7280\">📊 Sistema:</span><span style=\"font-weight:600;color:#111827\">%s</span></div>
+              <div style=\"display:flex;justify-content:space-between;border-bottom:1px solid #e5e7eb;padding:8px 0\"><span style=\"color:#6b7280\">👥 Equipo:</span><span style=\"font-weight:600;color:#111827\">%s</span></div>
+              <div style=\"display:flex;justify-content:space-between;padding:8px 0\"><span style=\"color:#6b7280\">⏰ Fecha máxima:</span><span style=\"font-weight:600;color:#111827\">%s</span></div>
+            </div>
+            <div style=\"background:#fff7ed;border-left:4px solid #f59e0b;padding:12px;border-radius:4px;color:#92400e;font-size:13px\">Sube los entregables antes de la fecha máxima. <a href=\"%s\">Ingresar al sistema</a></div>
+            %s
+          </div>
+        </div>
+        """.formatted(r.getNombreUsuario() != null ? r.getNombreUsuario() : r.getEmail(), plazo,
+                r.getNombreActividad(),
+                r.getSistemaAbrev() != null ? r.getSistemaAbrev() : "N/A",
+                r.getEquipoNombre() != null ? r.getEquipoNombre() : "N/A",
+                r.getFechaMaxima(), loginUrl, construirFooterLogo());
+    }
 }
@@ -0,0 +1,249 @@
+package com.sedapal.service;
+
+import com.sedapal.model.TipoNotificacion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estadísticas de notificaciones por tipo, trimestre, sistema, equipo y resultado.
+ * El envío solo incrementa un contador en memoria; los incrementos se suman a
+ * tb_estadisticas_notificacion cada app.estadisticas.flush-ms y la clave se retira
+ * del mapa al volcarla.
+ */
+@Service
+@Slf4j
+public class EstadisticasNotificacionService {
+
+    public static final String ENVIADO = "ENVIADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    // Longitudes de las columnas de la clave (V3); sistema y equipo llegan sin validar en las peticiones
+    private static final int MAX_SISTEMA = 50;
+    private static final int MAX_EQUIPO = 255;
+
+    private static final String UPSERT = """
+            INSERT INTO tb_estadisticas_notificacion (tipo, trimestre, sistema, equipo, resultado, total, actualizado)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (tipo, trimestre, sistema, equipo, resultado)
+            DO UPDATE SET total = tb_estadisticas_notificacion.total + EXCLUDED.total,
+                          actualizado = EXCLUDED.actualizado
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final ConcurrentHashMap<Clave, Long> pendientes = new ConcurrentHashMap<>();
+
+    @Value("${app.estadisticas.persistir:true}")
+    private boolean persistir;
+
+    public EstadisticasNotificacionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.escritura = new TransactionTemplate(transactionManager);
+    }
+
+    record Clave(TipoNotificacion tipo, int trimestre, String sistema, String equipo, String resultado) {}
+
+    /**
+     * Contabilizar un envío (sin acceso a BD). Sistema y equipo se recortan al tamaño
+     * de su columna para que una clave demasiado larga no haga fallar el volcado
+     */
+    public void registrar(TipoNotificacion tipo, int trimestre, String sistema, String equipo, boolean enviado) {
+        Clave clave = new Clave(tipo, trimestre,
+                recortar(sistema, MAX_SISTEMA),
+                recortar(equipo, MAX_EQUIPO),
+                enviado ? ENVIADO : FALLIDO);
+        pendientes.merge(clave, 1L, Long::sum);
+    }
+
+    /**
+     * Sumar los contadores pendientes a la tabla resumen. Cada clave se retira del mapa
+     * con su total (remove es atómico frente a merge: ningún incremento se pierde). Si
+     * el lote falla se reintenta fila a fila: las filas que la BD rechaza por sus datos
+     * se descartan y el resto vuelve a los contadores para el siguiente intento.
+     */
+    @Scheduled(fixedDelayString = "${app.estadisticas.flush-ms:60000}")
+    public synchronized void volcar() {
+        if (!persistir) {
+            return;
+        }
+        List<Map.Entry<Clave, Long>> lote = new ArrayList<>();
+        for (Clave clave : pendientes.keySet()) {
+            Long n = pendientes.remove(clave);
+            if (n != null && n > 0) {
+                lote.add(Map.entry(clave, n));
+            }
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        try {
+            escritura.executeWithoutResult(status -> insertar(lote, ahora));
+            log.debug("📋 Estadísticas de notificación volcadas: {} claves", lote.size());
+        } catch (RuntimeException ex) {
+            log.warn("⏭️ Volcado de estadísticas en lote fallido ({}); se reintenta fila a fila", ex.getMessage());
+            volcarFilaAFila(lote, ahora);
+        }
+    }
+
+    private void volcarFilaAFila(List<Map.Entry<Clave, Long>> lote, Timestamp ahora) {
+        for (int i = 0; i < lote.size(); i++) {
+            Map.Entry<Clave, Long> fila = lote.get(i);
+            try {
+                insertar(List.of(fila), ahora);
+            } catch (DataIntegrityViolationException ex) {
+                log.error("❌ Estadística descartada, la BD rechaza la clave {}: {}", fila.getKey(), ex.getMessage());
+            } catch (RuntimeException ex) {
+                // Fallo de conexión u otro no atribuible a la fila: se conserva lo que queda
+                lote.subList(i, lote.size()).forEach(e -> pendientes.merge(e.getKey(), e.getValue(), Long::sum));
+                log.error("❌ No se pudieron volcar las estadísticas de notificación: {}", ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void insertar(List<Map.Entry<Clave, Long>> filas, Timestamp ahora) {
+        jdbcTemplate.batchUpdate(UPSERT, filas, filas.size(), (ps, e) -> {
+            Clave c = e.getKey();
+            ps.setString(1, c.tipo().name());
+            ps.setInt(2, c.trimestre());
+            ps.setString(3, c.sistema());
+            ps.setString(4, c.equipo());
+            ps.setString(5, c.resultado());
+            ps.setLong(6, e.getValue());
+            ps.setTimestamp(7, ahora);
+        });
+    }
+
+    private static String recortar(String valor, int maximo) {
+        if (valor == null) {
+            return "";
+        }
+        String v = valor.trim();
+        if (v.length() <= maximo) {
+            return v;
+        }
+        // Sin partir un par suplente
+        int fin = Character.isHighSurrogate(v.charAt(maximo - 1)) ? maximo - 1 : maximo;
+        return v.substring(0, fin);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        volcar();
+    }
+
+    /**
+     * Escribir el resumen como CSV. Las filas se leen con un cursor a un fichero temporal
+     * y solo después, con la conexión ya devuelta al pool, se copian a la respuesta: una
+     * descarga lenta no retiene una conexión de lectura ni una transacción abierta.
+     * Refleja lo volcado a la tabla, así que puede ir un app.estadisticas.flush-ms por
+     * detrás de los contadores en memoria. Filtros opcionales por tipo, trimestre y sistema.
+     */
+    public void exportarCsv(OutputStream salida, TipoNotificacion tipo, Integer trimestre, String sistema) {
+        StringBuilder sql = new StringBuilder("SELECT tipo, trimestre, sistema, equipo, resultado, total, actualizado "
+                + "FROM tb_estadisticas_notificacion WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        if (tipo != null) {
+            sql.append(" AND tipo = ?");
+            parametros.add(tipo.name());
+        }
+        if (trimestre != null) {
+            sql.append(" AND trimestre = ?");
+            parametros.add(trimestre);
+        }
+        if (sistema != null && !sistema.isBlank()) {
+            sql.append(" AND sistema = ?");
+            parametros.add(sistema.trim());
+        }
+        sql.append(" ORDER BY trimestre, sistema, equipo, tipo, resultado");
+
+        Path temporal = null;
+        try {
+            temporal = Files.createTempFile("estadisticas-", ".csv");
+            try (Writer writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                writer.write("tipo,trimestre,sistema,equipo,resultado,total,actualizado\n");
+                // Con PostgreSQL el fetchSize solo abre un cursor dentro de una transacción
+                lectura.executeWithoutResult(status -> {
+                    JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+                    cursor.setFetchSize(500);
+                    cursor.query(sql.toString(), rs -> {
+                        try {
+                            writer.write(csv(rs.getString(1)));
+                            writer.write(',');
+                            writer.write(Integer.toString(rs.getInt(2)));
+                            writer.write(',');
+                            writer.write(csv(rs.getString(3)));
+                            writer.write(',');
+                            writer.write(csv(rs.getString(4)));
+                            writer.write(',');
+                            writer.write(csv(rs.getString(5)));
+                            writer.write(',');
+                            writer.write(Long.toString(rs.getLong(6)));
+                            writer.write(',');
+                            Timestamp actualizado = rs.getTimestamp(7);
+                            writer.write(actualizado == null ? "" : actualizado.toLocalDateTime().toString());
+                            writer.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, parametros.toArray());
+                });
+            }
+            Files.copy(temporal, salida);
+            salida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            borrar(temporal);
+        }
+    }
+
+    private static void borrar(Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            log.warn("⏭️ No se pudo borrar el temporal de exportación {}: {}", temporal, e.getMessage());
+        }
+    }
+
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        // Evitar que Excel interprete el campo como fórmula
+        if (!valor.isEmpty() && "=+-@".indexOf(valor.charAt(0)) >= 0) {
+            valor = "'" + valor;
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,242 @@
+package com.sedapal.service;
+
+import com.sedapal.model.AdminSistema;
+import com.sedapal.model.Sistema;
+import com.sedapal.model.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Invalidación de cachés locales entre instancias con LISTEN/NOTIFY de PostgreSQL.
+ * Las escrituras publican con pg_notify dentro de su transacción (PostgreSQL solo
+ * entrega el aviso si confirma) qué recursos versionados y qué entidades cambiaron;
+ * cada instancia escucha en una conexión propia, fuera del pool, e invalida en local:
+ * sube la versión del recurso (ETag y respuestas serializadas) y desaloja la entidad
+ * y las consultas de la caché de segundo nivel.
+ *
+ * La URL debe ser una conexión directa o en modo sesión (el pooler de Supabase en
+ * modo transacción, puerto 6543, no admite LISTEN). Sin URL el bus queda desactivado.
+ */
+@Service
+@Slf4j
+public class InvalidacionService {
+
+    private static final Pattern CANAL_VALIDO = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final String RECURSO = "v:";
+    private static final String ENTIDAD = "e:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VersionRecursoService versionRecursoService;
+    private final BusquedaUsuariosService busquedaUsuarios;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<String, Class<?>> entidades;
+    private final String nodo = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicBoolean conectado = new AtomicBoolean();
+    private final Counter publicadas;
+    private final Counter recibidas;
+
+    @Value("${app.invalidacion.url:}")
+    private String url;
+
+    @Value("${app.invalidacion.username:${spring.datasource.username:}}")
+    private String usuario;
+
+    @Value("${app.invalidacion.password:${spring.datasource.password:}}")
+    private String contrasena;
+
+    @Value("${app.invalidacion.canal:sedapal_invalidacion}")
+    private String canal;
+
+    // Espera máxima de avisos antes de comprobar que la conexión sigue viva
+    @Value("${app.invalidacion.sondeo-ms:10000}")
+    private int sondeoMs;
+
+    private volatile boolean activo;
+    private volatile Thread escucha;
+
+    public InvalidacionService(JdbcTemplate jdbcTemplate, VersionRecursoService versionRecursoService,
+                               BusquedaUsuariosService busquedaUsuarios, EntityManagerFactory entityManagerFactory,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.versionRecursoService = versionRecursoService;
+        this.busquedaUsuarios = busquedaUsuarios;
+        this.entityManagerFactory = entityManagerFactory;
+        // Entidades con caché de segundo nivel, por nombre simple
+        this.entidades = Map.of(
+                "Usuario", Usuario.class,
+                "Sistema", Sistema.class,
+                "AdminSistema", AdminSistema.class);
+        this.publicadas = meterRegistry.counter("sedapal.invalidacion.publicadas");
+        this.recibidas = meterRegistry.counter("sedapal.invalidacion.recibidas");
+        Gauge.builder("sedapal.invalidacion.conectado", conectado, c -> c.get() ? 1 : 0).register(meterRegistry);
+    }
+
+    public boolean habilitado() {
+        return url != null && !url.isBlank();
+    }
+
+    /**
+     * Invalidar una entidad modificada y los recursos versionados que dependen de ella.
+     * En local, la versión sube tras el commit y Hibernate ya actualizó su caché; el
+     * aviso a las demás instancias sale con la misma transacción.
+     */
+    public void invalidar(Class<?> entidad, Object id, String... recursos) {
+        List<String> claves = new ArrayList<>();
+        if (entidad != null && id != null) {
+            claves.add(ENTIDAD + entidad.getSimpleName() + ":" + id);
+        }
+        for (String recurso : recursos) {
+            versionRecursoService.incrementar(recurso);
+            claves.add(RECURSO + recurso);
+        }
+        if (!habilitado() || claves.isEmpty()) {
+            return;
+        }
+        String payload = nodo + "|" + String.join(",", claves);
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, canal, payload);
+        publicadas.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado()) {
+            log.info("⏭️ Bus de invalidación deshabilitado (app.invalidacion.url vacío)");
+            return;
+        }
+        if (!CANAL_VALIDO.matcher(canal).matches()) {
+            throw new IllegalStateException("Canal de invalidación no válido: " + canal);
+        }
+        activo = true;
+        escucha = Thread.ofPlatform().daemon().name("invalidacion-listen").start(this::escuchar);
+    }
+
+    @PreDestroy
+    void detener() {
+        activo = false;
+        Thread t = escucha;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void escuchar() {
+        long espera = 1_000;
+        boolean primera = true;
+        while (activo) {
+            try (Connection conexion = DriverManager.getConnection(url, usuario, contrasena)) {
+                try (Statement st = conexion.createStatement()) {
+                    st.execute("LISTEN " + canal);
+                }
+                conectado.set(true);
+                espera = 1_000;
+                log.info("✅ Escuchando invalidaciones en el canal {} (nodo {})", canal, nodo);
+                if (!primera) {
+                    // Mientras no hubo conexión se pudieron perder avisos
+                    invalidarTodo();
+                }
+                primera = false;
+
+                PGConnection pg = conexion.unwrap(PGConnection.class);
+                while (activo) {
+                    PGNotification[] avisos = pg.getNotifications(sondeoMs);
+                    if (avisos == null || avisos.length == 0) {
+                        try (Statement st = conexion.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification aviso : avisos) {
+                        procesar(aviso.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!activo) {
+                    break;
+                }
+                log.warn("❌ Conexión de invalidación perdida: {}. Reintento en {} ms", e.getMessage(), espera);
+            } finally {
+                conectado.set(false);
+            }
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            espera = Math.min(espera * 2, 30_000);
+        }
+    }
+
+    private void procesar(String payload) {
+        int separador = payload.indexOf('|');
+        if (separador < 0 || payload.substring(0, separador).equals(nodo)) {
+            // Aviso propio: la invalidación local ya se hizo en la escritura
+            return;
+        }
+        recibidas.increment();
+        boolean entidadDesalojada = false;
+        for (String clave : payload.substring(separador + 1).split(",")) {
+            if (clave.startsWith(RECURSO)) {
+                versionRecursoService.incrementar(clave.substring(RECURSO.length()));
+            } else if (clave.startsWith(ENTIDAD)) {
+                entidadDesalojada |= desalojar(clave.substring(ENTIDAD.length()));
+            }
+        }
+        if (entidadDesalojada) {
+            // Las marcas de tabla de la caché de consultas son locales: otra instancia
+            // no sabe que la tabla cambió, así que se descartan los resultados guardados
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+        }
+        log.debug("🔄 Invalidación recibida: {}", payload);
+    }
+
+    private boolean desalojar(String entidadId) {
+        int dosPuntos = entidadId.indexOf(':');
+        Class<?> tipo = dosPuntos < 0 ? null : entidades.get(entidadId.substring(0, dosPuntos));
+        if (tipo == null) {
+            log.warn("⏭️ Invalidación de entidad desconocida: {}", entidadId);
+            return false;
+        }
+        try {
+            Long id = Long.valueOf(entidadId.substring(dosPuntos + 1));
+            entityManagerFactory.getCache().evict(tipo, id);
+            if (tipo == Usuario.class) {
+                busquedaUsuarios.recargar(id);
+            }
+        } catch (NumberFormatException e) {
+            entityManagerFactory.getCache().evict(tipo);
+        }
+        return true;
+    }
+
+    private void invalidarTodo() {
+        versionRecursoService.incrementarTodos();
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+        busquedaUsuarios.cargar();
+        log.info("🔄 Cachés locales invalidadas tras reconectar el bus de invalidación");
+    }
+}
@@ -0,0 +1,140 @@
+package com.sedapal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Envío de correo en dos etapas: render (CPU, pool "mailRender") y transporte al
+ * proveedor (red, pool "mailTransporte"), unidas por la cola acotada del transporte.
+ * Si el transporte se atrasa, el render espera; si el render se llena, el envío se
+ * rechaza con TaskRejectedException. Métricas por etapa: sedapal.mail.etapa (duración),
+ * sedapal.mail.espera (tiempo en cola) y sedapal.mail.cola (pendientes). El render y el
+ * transporte quedan como tramos de la traza de la petición que encoló el correo.
+ */
+@Component
+@Slf4j
+public class PipelineCorreo {
+
+    /** Un correo: cómo renderizarlo y cómo entregarlo al proveedor */
+    public record Trabajo<T>(Supplier<T> render, Consumer<T> transporte) {}
+
+    private final ThreadPoolTaskExecutor render;
+    private final ThreadPoolTaskExecutor transporte;
+    private final Timer duracionRender;
+    private final Timer duracionTransporte;
+    private final Timer esperaRender;
+    private final Timer esperaTransporte;
+    private final Counter rechazos;
+    private final ObservationRegistry observationRegistry;
+
+    public PipelineCorreo(@Qualifier("mailRender") ThreadPoolTaskExecutor render,
+                          @Qualifier("mailTransporte") ThreadPoolTaskExecutor transporte,
+                          MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.render = render;
+        this.transporte = transporte;
+        this.observationRegistry = observationRegistry;
+        this.duracionRender = Timer.builder("sedapal.mail.etapa").tag("etapa", "render").register(meterRegistry);
+        this.duracionTransporte = Timer.builder("sedapal.mail.etapa").tag("etapa", "transporte").register(meterRegistry);
+        this.esperaRender = Timer.builder("sedapal.mail.espera").tag("etapa", "render").register(meterRegistry);
+        this.esperaTransporte = Timer.builder("sedapal.mail.espera").tag("etapa", "transporte").register(meterRegistry);
+        this.rechazos = meterRegistry.counter("sedapal.mail.rechazos");
+        Gauge.builder("sedapal.mail.cola", render, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("etapa", "render").register(meterRegistry);
+        Gauge.builder("sedapal.mail.cola", transporte, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("etapa", "transporte").register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<Void> enviar(Supplier<T> render, Consumer<T> transporte) {
+        return enviarLote(List.of(new Trabajo<>(render, transporte))).get(0);
+    }
+
+    /**
+     * Encolar varios correos como una sola tarea de render (ocupa un único hueco de la
+     * cola). Cada futuro se completa cuando su correo se entrega o falla.
+     */
+    public <T> List<CompletableFuture<Void>> enviarLote(List<Trabajo<T>> trabajos) {
+        List<CompletableFuture<Void>> futuros = new ArrayList<>(trabajos.size());
+        for (int i = 0; i < trabajos.size(); i++) {
+            futuros.add(new CompletableFuture<>());
+        }
+        long encolado = System.nanoTime();
+        // Observación en curso al encolar (la petición HTTP): padre de los tramos en los otros hilos
+        Observation padre = observationRegistry.getCurrentObservation();
+        try {
+            render.execute(() -> {
+                esperaRender.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                for (int i = 0; i < trabajos.size(); i++) {
+                    renderizar(trabajos.get(i), futuros.get(i), padre);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rechazos.increment();
+            log.warn("⏱️ Cola de correo llena ({} pendientes de render): envío rechazado", render.getQueueSize());
+            throw e;
+        }
+        return futuros;
+    }
+
+    private <T> void renderizar(Trabajo<T> trabajo, CompletableFuture<Void> futuro, Observation padre) {
+        T mensaje;
+        long inicio = System.nanoTime();
+        try {
+            mensaje = tramo("mail render", padre).observe(trabajo.render());
+        } catch (RuntimeException e) {
+            futuro.completeExceptionally(e);
+            return;
+        } finally {
+            duracionRender.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        long renderizado = System.nanoTime();
+        try {
+            // Bloquea si la cola del transporte está llena
+            transporte.execute(() -> {
+                esperaTransporte.record(System.nanoTime() - renderizado, TimeUnit.NANOSECONDS);
+                long envio = System.nanoTime();
+                try {
+                    tramo("mail transporte", padre).observe(() -> trabajo.transporte().accept(mensaje));
+                    futuro.complete(null);
+                } catch (RuntimeException e) {
+                    futuro.completeExceptionally(e);
+                } finally {
+                    duracionTransporte.record(System.nanoTime() - envio, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            futuro.completeExceptionally(e);
+        }
+    }
+
+    private Observation tramo(String nombre, Observation padre) {
+        return Observation.createNotStarted("sedapal.traza.mail", observationRegistry)
+                .contextualName(nombre)
+                .parentObservation(padre);
+    }
+
+    /** Correos esperando en las dos colas */
+    public int enEspera() {
+        return render.getQueueSize() + transporte.getQueueSize();
+    }
+
+    public int capacidad() {
+        return render.getQueueCapacity() + transporte.getQueueCapacity();
+    }
+}
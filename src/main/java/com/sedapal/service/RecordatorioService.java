@@ -0,0 +1,342 @@
+package com.sedapal.service;
+
+import com.sedapal.model.Recordatorio;
+import com.sedapal.repository.RecordatorioRepository;
+import com.sedapal.util.RuedaTemporal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recordatorios de fecha máxima de actividades. Cada recordatorio se guarda en
+ * tb_recordatorios y se programa en una {@link RuedaTemporal}: el tick solo recoge
+ * los que vencen en ese minuto, sin recorrer los pendientes. Los vencidos se envían
+ * en lotes por el executor de correo; al arrancar se recargan los PENDIENTE.
+ *
+ * Con varias instancias las ruedas no coinciden: cada una tiene lo que cargó al
+ * arrancar y lo que creó después. Uno creado en otra instancia lo envía esa; esta solo
+ * lo adopta en la revisión periódica (app.recordatorios.revision-ms) si sigue PENDIENTE
+ * ya vencido, p. ej. porque aquella cayó. La garantía la da el reclamo en BD: antes
+ * de enviar, cada instancia pasa la fila de PENDIENTE a ENVIANDO y solo envía las que
+ * consiguió, así un recordatorio sale una vez y uno cancelado en otra instancia no sale.
+ */
+@Service
+@Slf4j
+public class RecordatorioService {
+
+    private static final DateTimeFormatter FECHA_PE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final RecordatorioRepository recordatorioRepository;
+    private final EmailService emailService;
+
+    @Value("${app.recordatorios.enabled:true}")
+    private boolean habilitado;
+
+    // Antelaciones respecto a la fecha máxima, p. ej. 3d,1d
+    @Value("${app.recordatorios.antelacion:3d,1d}")
+    private List<Duration> antelaciones;
+
+    // Hora local de envío (HH:mm)
+    @Value("${app.recordatorios.hora:08:00}")
+    private String horaEnvio;
+
+    @Value("${app.recordatorios.zona:America/Lima}")
+    private ZoneId zona;
+
+    @Value("${app.recordatorios.lote:50}")
+    private int tamanoLote;
+
+    // Lotes entregados al executor de correo por tick; el resto espera al siguiente
+    @Value("${app.recordatorios.max-lotes-por-tick:4}")
+    private int maxLotesPorTick;
+
+    // Un ENVIANDO más antiguo se da por perdido (instancia caída a mitad de envío) y vuelve a PENDIENTE
+    @Value("${app.recordatorios.reclamo-caducado:15m}")
+    private Duration reclamoCaducado;
+
+    private final TransactionTemplate escritura;
+    private final long tickMs;
+    private final RuedaTemporal<Recordatorio> rueda;
+    private final ConcurrentHashMap<Long, RuedaTemporal.Entrada<Recordatorio>> programados = new ConcurrentHashMap<>();
+
+    public RecordatorioService(RecordatorioRepository recordatorioRepository, EmailService emailService,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${app.recordatorios.tick-ms:60000}") long tickMs) {
+        this.recordatorioRepository = recordatorioRepository;
+        this.emailService = emailService;
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.tickMs = tickMs;
+        this.rueda = new RuedaTemporal<>(tickMs, System.currentTimeMillis());
+        Gauge.builder("sedapal.recordatorios.programados", programados, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    /**
+     * Registrar los recordatorios de una actividad asignada. Se programan en la rueda
+     * cuando confirma la transacción que los guarda, siempre propia: un error aquí
+     * (p. ej. uq_recordatorio con una petición simultánea) no afecta a quien llama.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void programarActividad(String email, String nombreUsuario, String nombreActividad,
+                                   String sistemaAbrev, String equipoNombre, int trimestre, String fechaMaxima) {
+        if (!habilitado || email == null || nombreActividad == null) {
+            return;
+        }
+        LocalDate fecha = parsearFecha(fechaMaxima);
+        if (fecha == null) {
+            log.debug("⏭️ Sin recordatorio para {}: fecha máxima no reconocida ({})", email, fechaMaxima);
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now(zona);
+        List<Recordatorio> nuevos = new ArrayList<>();
+        for (Duration antelacion : antelaciones) {
+            LocalDateTime venceEn = fecha.atTime(LocalTime.parse(horaEnvio)).minus(antelacion);
+            if (venceEn.isBefore(ahora) || recordatorioRepository
+                    .existsByEmailAndNombreActividadAndFechaMaximaAndVenceEn(email, nombreActividad, fecha, venceEn)) {
+                continue;
+            }
+            Recordatorio r = new Recordatorio();
+            r.setEmail(email);
+            r.setNombreUsuario(nombreUsuario);
+            r.setNombreActividad(nombreActividad);
+            r.setSistemaAbrev(sistemaAbrev);
+            r.setEquipoNombre(equipoNombre);
+            r.setTrimestre(trimestre);
+            r.setFechaMaxima(fecha);
+            r.setVenceEn(venceEn);
+            nuevos.add(recordatorioRepository.save(r));
+        }
+        if (nuevos.isEmpty()) {
+            return;
+        }
+        log.info("📝 {} recordatorio(s) registrados para {} - {} (fecha máxima {})",
+                nuevos.size(), email, nombreActividad, fecha);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                nuevos.forEach(RecordatorioService.this::programar);
+            }
+        });
+    }
+
+    /**
+     * Cancelar los recordatorios pendientes de una actividad ya entregada por el usuario
+     */
+    @Transactional
+    public void cancelarActividad(String email, String nombreActividad) {
+        if (!habilitado || email == null || nombreActividad == null) {
+            return;
+        }
+        List<Recordatorio> pendientes = recordatorioRepository
+                .findByEmailAndNombreActividadAndEstado(email, nombreActividad, Recordatorio.Estado.PENDIENTE);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<Long> ids = pendientes.stream().map(Recordatorio::getId).toList();
+        recordatorioRepository.cambiarEstado(ids, Recordatorio.Estado.PENDIENTE, Recordatorio.Estado.CANCELADO, null);
+        synchronized (rueda) {
+            for (Long id : ids) {
+                RuedaTemporal.Entrada<Recordatorio> entrada = programados.remove(id);
+                if (entrada != null) {
+                    entrada.cancelar();
+                }
+            }
+        }
+        log.info("⏭️ {} recordatorio(s) cancelados para {} - {}", ids.size(), email, nombreActividad);
+    }
+
+    /** Recuperar los pendientes tras un reinicio; los ya vencidos salen en el primer tick */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarPendientes() {
+        if (!habilitado) {
+            log.info("⏭️ Recordatorios deshabilitados (app.recordatorios.enabled=false)");
+            return;
+        }
+        List<Recordatorio> pendientes = recordatorioRepository.findByEstadoOrderByVenceEn(Recordatorio.Estado.PENDIENTE);
+        pendientes.forEach(this::programar);
+        log.info("📋 Recordatorios pendientes recargados: {}", pendientes.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.recordatorios.tick-ms:60000}")
+    public void avanzar() {
+        if (!habilitado) {
+            return;
+        }
+        List<Recordatorio> vencidos = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        synchronized (rueda) {
+            rueda.avanzar(ahora, r -> {
+                programados.remove(r.getId());
+                vencidos.add(r);
+            });
+        }
+        if (vencidos.isEmpty()) {
+            return;
+        }
+
+        int enviados = 0;
+        int ajenos = 0;
+        for (int i = 0; i < vencidos.size(); i += tamanoLote) {
+            List<Recordatorio> lote = vencidos.subList(i, Math.min(i + tamanoLote, vencidos.size()));
+            if (i / tamanoLote >= maxLotesPorTick) {
+                // Cupo del tick agotado: se reintenta en el siguiente tick
+                lote.forEach(r -> reprogramar(r, ahora + tickMs));
+                continue;
+            }
+            List<Recordatorio> propios = reclamar(lote);
+            ajenos += lote.size() - propios.size();
+            if (propios.isEmpty()) {
+                continue;
+            }
+            if (!entregar(propios)) {
+                // Cola de correo llena: se liberan y se reintentan en el siguiente tick
+                cambiarEstado(propios, Recordatorio.Estado.ENVIANDO, Recordatorio.Estado.PENDIENTE, null);
+                propios.forEach(r -> reprogramar(r, ahora + tickMs));
+                continue;
+            }
+            enviados += propios.size();
+        }
+        log.info("⏰ Recordatorios vencidos: {} (entregados a la cola de correo: {}, enviados o cancelados en otra instancia: {})",
+                vencidos.size(), enviados, ajenos);
+    }
+
+    /**
+     * Recuperar lo que otra instancia dejó a medias: reclamos caducados y pendientes
+     * vencidos que no están en esta rueda (creados en una instancia que ya no está)
+     */
+    @Scheduled(fixedDelayString = "${app.recordatorios.revision-ms:300000}",
+            initialDelayString = "${app.recordatorios.revision-ms:300000}")
+    public void revisar() {
+        if (!habilitado) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now(zona);
+        List<Recordatorio> caducados = recordatorioRepository
+                .findByEstadoAndFechaEnvioBefore(Recordatorio.Estado.ENVIANDO, ahora.minus(reclamoCaducado));
+        int liberados = 0;
+        for (Recordatorio r : caducados) {
+            if (recordatorioRepository.cambiarEstado(List.of(r.getId()), Recordatorio.Estado.ENVIANDO,
+                    Recordatorio.Estado.PENDIENTE, null) == 1) {
+                programar(r);
+                liberados++;
+            }
+        }
+        List<Recordatorio> huerfanos = recordatorioRepository
+                .findByEstadoAndVenceEnBefore(Recordatorio.Estado.PENDIENTE, ahora.minus(Duration.ofMillis(2 * tickMs)));
+        int adoptados = 0;
+        for (Recordatorio r : huerfanos) {
+            if (!programados.containsKey(r.getId())) {
+                programar(r);
+                adoptados++;
+            }
+        }
+        if (liberados > 0 || adoptados > 0) {
+            log.info("🔄 Recordatorios recuperados: {} reclamos caducados, {} pendientes de otra instancia",
+                    liberados, adoptados);
+        }
+    }
+
+    /**
+     * Pasa a ENVIANDO los que siguen PENDIENTE y devuelve solo esos. Una sentencia por
+     * fila para saber cuáles ganó esta instancia: si otra reclamó o canceló la fila
+     * antes, el UPDATE no la encuentra en PENDIENTE y devuelve 0. En orden de id para
+     * que dos instancias con lotes solapados bloqueen las filas en el mismo orden
+     */
+    private List<Recordatorio> reclamar(List<Recordatorio> lote) {
+        LocalDateTime ahora = LocalDateTime.now(zona);
+        try {
+            return escritura.execute(status -> lote.stream()
+                    .sorted(Comparator.comparing(Recordatorio::getId))
+                    .filter(r -> recordatorioRepository.cambiarEstado(List.of(r.getId()),
+                            Recordatorio.Estado.PENDIENTE, Recordatorio.Estado.ENVIANDO, ahora) == 1)
+                    .toList());
+        } catch (RuntimeException e) {
+            log.error("❌ No se pudieron reclamar {} recordatorios: {}", lote.size(), e.getMessage());
+            lote.forEach(r -> reprogramar(r, System.currentTimeMillis() + tickMs));
+            return List.of();
+        }
+    }
+
+    private void cambiarEstado(List<Recordatorio> lote, Recordatorio.Estado actual, Recordatorio.Estado nuevo,
+                               LocalDateTime fecha) {
+        recordatorioRepository.cambiarEstado(lote.stream().map(Recordatorio::getId).toList(), actual, nuevo, fecha);
+    }
+
+    private boolean entregar(List<Recordatorio> lote) {
+        List<Recordatorio> copia = List.copyOf(lote);
+        try {
+            emailService.enviarRecordatorios(copia).whenComplete((ok, error) -> {
+                Set<Long> enviados = error == null ? ok : Set.of();
+                List<Long> fallidos = new ArrayList<>();
+                for (Recordatorio r : copia) {
+                    if (!enviados.contains(r.getId())) {
+                        fallidos.add(r.getId());
+                    }
+                }
+                LocalDateTime ahora = LocalDateTime.now(zona);
+                if (!enviados.isEmpty()) {
+                    recordatorioRepository.cambiarEstado(enviados, Recordatorio.Estado.ENVIANDO,
+                            Recordatorio.Estado.ENVIADO, ahora);
+                }
+                if (!fallidos.isEmpty()) {
+                    recordatorioRepository.cambiarEstado(fallidos, Recordatorio.Estado.ENVIANDO,
+                            Recordatorio.Estado.FALLIDO, ahora);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("⏱️ Cola de correo llena: {} recordatorios se reintentan en el siguiente tick", copia.size());
+            return false;
+        }
+        return true;
+    }
+
+    private void programar(Recordatorio r) {
+        reprogramar(r, r.getVenceEn().atZone(zona).toInstant().toEpochMilli());
+    }
+
+    private void reprogramar(Recordatorio r, long instanteMs) {
+        synchronized (rueda) {
+            programados.put(r.getId(), rueda.programar(instanteMs, r));
+        }
+    }
+
+    /** yyyy-MM-dd (también con hora ISO a continuación) o dd/MM/yyyy */
+    static LocalDate parsearFecha(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String t = texto.trim();
+        try {
+            if (t.length() >= 10 && t.charAt(4) == '-') {
+                return LocalDate.parse(t.substring(0, 10));
+            }
+            return LocalDate.parse(t, FECHA_PE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
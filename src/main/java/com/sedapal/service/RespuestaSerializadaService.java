@@ -0,0 +1,176 @@
+package com.sedapal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sedapal.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché de respuestas JSON ya serializadas (y comprimidas con gzip) de los listados
+ * más consultados. Cada entrada guarda la versión del recurso con la que se generó
+ * ({@link VersionRecursoService}); mientras no cambie, la petición se responde con
+ * los bytes guardados sin pasar por el repositorio ni por Jackson.
+ */
+@Service
+@Slf4j
+public class RespuestaSerializadaService {
+
+    /** Cuerpo de una versión concreta del recurso; gzip es null si no compensa comprimir */
+    public record Respuesta(long version, String etag, byte[] json, byte[] gzip) {
+
+        /**
+         * Respuesta 200 con los bytes tal cual; si el cliente acepta gzip se envía la
+         * versión comprimida (Tomcat no vuelve a comprimir si ya hay Content-Encoding)
+         */
+        public ResponseEntity<byte[]> aResponseEntity(String acceptEncoding) {
+            boolean comprimir = gzip != null && aceptaGzip(acceptEncoding);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (comprimir) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            byte[] cuerpo = comprimir ? gzip : json;
+            return builder.contentLength(cuerpo.length).body(cuerpo);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final VersionRecursoService versionRecursoService;
+    private final SingleFlight<String, Respuesta> generando = new SingleFlight<>();
+    private final Map<String, Respuesta> entradas;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    @Value("${app.respuestas.gzip:true}")
+    private boolean gzipHabilitado;
+
+    // Por debajo de este tamaño no se guarda versión comprimida (igual que server.compression)
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minimoGzip;
+
+    public RespuestaSerializadaService(ObjectMapper objectMapper, VersionRecursoService versionRecursoService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.respuestas.max-entradas:256}") int maxEntradas) {
+        this.objectMapper = objectMapper;
+        this.versionRecursoService = versionRecursoService;
+        // LRU por acceso: hay una entrada por administrador en admin-sistemas
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Respuesta> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+        this.aciertos = meterRegistry.counter("sedapal.respuestas.cache", "resultado", "acierto");
+        this.fallos = meterRegistry.counter("sedapal.respuestas.cache", "resultado", "fallo");
+        Gauge.builder("sedapal.respuestas.cache.bytes", this, RespuestaSerializadaService::bytes)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Respuesta vigente del recurso; si la guardada es de una versión anterior (o no
+     * hay), se genera con {@code carga} y se serializa una sola vez aunque lleguen
+     * varias peticiones a la vez
+     */
+    public Respuesta obtener(String recurso, Supplier<?> carga) {
+        long version = versionRecursoService.version(recurso);
+        Respuesta actual;
+        synchronized (entradas) {
+            actual = entradas.get(recurso);
+        }
+        if (actual != null && actual.version() == version) {
+            aciertos.increment();
+            return actual;
+        }
+        fallos.increment();
+        return generando.ejecutar(recurso, () -> generar(recurso, carga));
+    }
+
+    private Respuesta generar(String recurso, Supplier<?> carga) {
+        // La versión se lee antes de cargar: si cambia durante la carga, la siguiente
+        // petición ve otra versión y regenera en lugar de servir datos a medias
+        long version = versionRecursoService.version(recurso);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(carga.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar " + recurso, e);
+        }
+        byte[] gzip = gzipHabilitado && json.length >= minimoGzip.toBytes() ? comprimir(json) : null;
+        Respuesta respuesta = new Respuesta(version, versionRecursoService.etag(recurso, version), json, gzip);
+        synchronized (entradas) {
+            Respuesta previa = entradas.get(recurso);
+            if (previa == null || previa.version() <= version) {
+                entradas.put(recurso, respuesta);
+            }
+        }
+        log.debug("🔄 Respuesta de {} serializada (versión {}, {} bytes, gzip {})",
+                recurso, version, json.length, gzip == null ? "-" : gzip.length);
+        return respuesta;
+    }
+
+    private double bytes() {
+        synchronized (entradas) {
+            long total = 0;
+            for (Respuesta r : entradas.values()) {
+                total += r.json().length + (r.gzip() == null ? 0 : r.gzip().length);
+            }
+            return total;
+        }
+    }
+
+    private static byte[] comprimir(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(salida)) {
+            gz.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    /** gzip (o *) en Accept-Encoding sin q=0 */
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String parte : acceptEncoding.split(",")) {
+            String[] campos = parte.split(";");
+            String codificacion = campos[0].trim();
+            if (!codificacion.equalsIgnoreCase("gzip") && !codificacion.equals("*")) {
+                continue;
+            }
+            boolean rechazada = false;
+            for (int i = 1; i < campos.length; i++) {
+                String p = campos[i].trim().replace(" ", "");
+                if (p.startsWith("q=") && p.substring(2).matches("0(\\.0{0,3})?")) {
+                    rechazada = true;
+                }
+            }
+            if (!rechazada) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
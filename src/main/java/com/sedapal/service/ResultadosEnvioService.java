@@ -0,0 +1,253 @@
+package com.sedapal.service;
+
+import com.sedapal.model.TipoNotificacion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusión por Server-Sent Events del resultado de los envíos de correo a la sesión
+ * del frontend que los originó (X-Cliente-Id). El id lo emite el servidor
+ * ({@link #emitirId()}) y solo se admiten suscripciones a ids emitidos: un cliente no
+ * puede elegir ni adivinar el de otro. El evento no lleva destinatario ni asunto.
+ * Publicar no bloquea al hilo de correo:
+ * el evento se deja en la cola acotada de cada suscriptor y un hilo virtual la vacía
+ * hacia el socket. Si un suscriptor no consume y su cola se llena, se le desconecta
+ * (el EventSource del navegador vuelve a conectar solo).
+ */
+@Service
+@Slf4j
+public class ResultadosEnvioService {
+
+    /** Evento enviado al cliente como JSON con nombre "resultado" */
+    public record ResultadoEnvio(long id, TipoNotificacion tipo, boolean enviado, String error, Instant instante) {}
+
+    private static final Object LATIDO = new Object();
+
+    @Value("${app.sse.buffer:64}")
+    private int capacidadBuffer;
+
+    @Value("${app.sse.max-suscriptores:500}")
+    private int maxSuscriptores;
+
+    @Value("${app.sse.max-por-cliente:4}")
+    private int maxPorCliente;
+
+    @Value("${app.sse.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${app.sse.max-ids:10000}")
+    private int maxIds;
+
+    // Un id emitido sin suscripciones durante este tiempo caduca; el cliente pide otro
+    @Value("${app.sse.id-inactivo:10m}")
+    private Duration idInactivo;
+
+    private final ConcurrentHashMap<String, Set<Suscriptor>> porCliente = new ConcurrentHashMap<>();
+    // Ids emitidos y el instante (nanoTime) de su último uso
+    private final ConcurrentHashMap<String, Long> emitidos = new ConcurrentHashMap<>();
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final AtomicInteger suscriptores = new AtomicInteger();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ExecutorService escritores = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("sse-", 0).factory());
+    private final Counter descartados;
+
+    public ResultadosEnvioService(MeterRegistry meterRegistry) {
+        this.descartados = meterRegistry.counter("sedapal.sse.descartados");
+        Gauge.builder("sedapal.sse.suscriptores", suscriptores, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Emitir un id de cliente aleatorio (192 bits); null si se alcanzó el máximo de ids vigentes
+     */
+    public String emitirId() {
+        if (emitidos.size() >= maxIds) {
+            purgarIds(System.nanoTime());
+            if (emitidos.size() >= maxIds) {
+                return null;
+            }
+        }
+        byte[] bytes = new byte[24];
+        aleatorio.nextBytes(bytes);
+        String clienteId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        emitidos.put(clienteId, System.nanoTime());
+        return clienteId;
+    }
+
+    /** El id fue emitido por esta instancia y no ha caducado */
+    public boolean emitido(String clienteId) {
+        return clienteId != null && emitidos.replace(clienteId, System.nanoTime()) != null;
+    }
+
+    /**
+     * Abrir una suscripción para un id emitido; null si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter suscribir(String clienteId) {
+        if (suscriptores.incrementAndGet() > maxSuscriptores) {
+            suscriptores.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Suscriptor s = new Suscriptor(clienteId, emitter, capacidadBuffer);
+        AtomicBoolean admitido = new AtomicBoolean();
+        porCliente.compute(clienteId, (k, delCliente) -> {
+            if (delCliente == null) {
+                delCliente = ConcurrentHashMap.newKeySet();
+            }
+            if (delCliente.size() < maxPorCliente) {
+                admitido.set(delCliente.add(s));
+            }
+            return delCliente.isEmpty() ? null : delCliente;
+        });
+        if (!admitido.get()) {
+            suscriptores.decrementAndGet();
+            return null;
+        }
+        emitter.onCompletion(() -> quitar(s));
+        emitter.onTimeout(() -> quitar(s));
+        emitter.onError(e -> quitar(s));
+        // Primer evento: confirma la conexión y evita que proxies esperen el primer byte
+        s.encolar(LATIDO);
+        log.debug("📋 Suscripción SSE abierta para cliente {} ({} activas)", clienteId, suscriptores.get());
+        return emitter;
+    }
+
+    /**
+     * Publicar el resultado de un envío; sin efecto si el cliente no tiene suscripciones
+     */
+    public void publicar(String clienteId, TipoNotificacion tipo, String error) {
+        if (clienteId == null) {
+            return;
+        }
+        Set<Suscriptor> delCliente = porCliente.get(clienteId);
+        if (delCliente == null || delCliente.isEmpty()) {
+            return;
+        }
+        ResultadoEnvio resultado = new ResultadoEnvio(secuencia.incrementAndGet(), tipo,
+                error == null, error, Instant.now());
+        for (Suscriptor s : delCliente) {
+            s.encolar(resultado);
+        }
+    }
+
+    /**
+     * Latido periódico: mantiene viva la conexión tras proxies y detecta clientes caídos.
+     * De paso renueva los ids con suscripciones y caduca los inactivos
+     */
+    @Scheduled(fixedDelayString = "${app.sse.latido-ms:15000}")
+    public void latido() {
+        long ahora = System.nanoTime();
+        porCliente.forEach((clienteId, delCliente) -> {
+            emitidos.replace(clienteId, ahora);
+            delCliente.forEach(s -> s.encolar(LATIDO));
+        });
+        purgarIds(ahora);
+    }
+
+    private void purgarIds(long ahora) {
+        long limite = idInactivo.toNanos();
+        emitidos.entrySet().removeIf(e -> ahora - e.getValue() > limite && !porCliente.containsKey(e.getKey()));
+    }
+
+    @PreDestroy
+    void cerrar() {
+        porCliente.values().forEach(delCliente -> delCliente.forEach(s -> s.emitter.complete()));
+        escritores.shutdown();
+    }
+
+    private void quitar(Suscriptor s) {
+        porCliente.computeIfPresent(s.clienteId, (k, delCliente) -> {
+            if (delCliente.remove(s)) {
+                suscriptores.decrementAndGet();
+            }
+            return delCliente.isEmpty() ? null : delCliente;
+        });
+    }
+
+    private final class Suscriptor {
+
+        private final String clienteId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Object> cola;
+        private final AtomicBoolean programado = new AtomicBoolean();
+        private volatile boolean descartado;
+
+        Suscriptor(String clienteId, SseEmitter emitter, int capacidad) {
+            this.clienteId = clienteId;
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidad);
+        }
+
+        void encolar(Object evento) {
+            if (descartado) {
+                return;
+            }
+            if (!cola.offer(evento)) {
+                // Consumidor lento: se desconecta desde el hilo escritor, nunca desde el publicador
+                descartado = true;
+                quitar(this);
+                descartados.increment();
+                log.warn("⏭️ Suscriptor SSE lento desconectado (cliente {})", clienteId);
+            }
+            if (programado.compareAndSet(false, true)) {
+                escritores.execute(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            try {
+                Object evento;
+                while (!descartado && (evento = cola.poll()) != null) {
+                    if (evento == LATIDO) {
+                        emitter.send(SseEmitter.event().comment("latido"));
+                    } else {
+                        ResultadoEnvio r = (ResultadoEnvio) evento;
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(r.id()))
+                                .name("resultado")
+                                .data(r, MediaType.APPLICATION_JSON));
+                    }
+                }
+                if (descartado) {
+                    cola.clear();
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Conexión cerrada por el cliente o emisor ya completado
+                descartado = true;
+                cola.clear();
+                quitar(this);
+                return;
+            } finally {
+                programado.set(false);
+            }
+            // Eventos llegados entre el último poll y liberar la marca
+            if (!cola.isEmpty() && programado.compareAndSet(false, true)) {
+                escritores.execute(this::drenar);
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.sedapal.service;
 
 import com.sedapal.dto.UsuarioDTO;
+import com.sedapal.journal.DiarioEventos;
 import com.sedapal.model.AdminSistema;
 import com.sedapal.model.Usuario;
 import com.sedapal.repository.AdminSistemaRepository;
 import com.sedapal.repository.UsuarioRepository;
+import com.sedapal.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Random;
@@ -21,7 +25,12 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final AdminSistemaRepository adminSistemaRepository;
     private final EmailService emailService;
+    private final InvalidacionService invalidacionService;
+    private final BusquedaUsuariosService busquedaUsuarios;
+    private final DiarioEventos diarioEventos;
+    private final RecordatorioService recordatorioService;
     private final Random random = new Random();
+    private final SingleFlight<String, UsuarioDTO.UsuarioResponse> usuariosEnCurso = new SingleFlight<>();
 
     /**
      * Crear administrador y asignarlo a un sistema
@@ -48,6 +57,7 @@ public class UsuarioService {
 
         Usuario savedAdmin = usuarioRepository.save(admin);
         log.info("✅ Administrador creado: {} (ID: {})", email, savedAdmin.getId());
+        diarioEventos.usuarioCreado(savedAdmin.getId(), email, Usuario.Rol.admin.name());
 
         // Asignar sistema al administrador
         AdminSistema adminSistema = new AdminSistema();
@@ -55,8 +65,15 @@ public class UsuarioService {
         adminSistema.setIdSistema(idSistema);
         adminSistema.setEstado(true);
         
-        adminSistemaRepository.save(adminSistema);
+        adminSistema = adminSistemaRepository.save(adminSistema);
         log.info("✅ Sistema {} asignado al administrador {}", idSistema, savedAdmin.getId());
+        diarioEventos.asignacionCreada(savedAdmin.getId(), idSistema);
+
+        // Invalidar la lista de administradores y sus sistemas, aquí y en las demás instancias
+        invalidacionService.invalidar(Usuario.class, savedAdmin.getId(), VersionRecursoService.ADMINISTRADORES);
+        busquedaUsuarios.indexar(savedAdmin);
+        invalidacionService.invalidar(AdminSistema.class, adminSistema.getId(),
+                VersionRecursoService.sistemasDeAdmin(savedAdmin.getId()));
 
         // Enviar credenciales por email al administrador
         try {
@@ -98,6 +115,9 @@ public class UsuarioService {
 
         Usuario savedUsuario = usuarioRepository.save(usuario);
         log.info("✅ Usuario creado: {} (ID: {}) - Contraseña: {}", email, savedUsuario.getId(), contrasena);
+        diarioEventos.usuarioCreado(savedUsuario.getId(), email, Usuario.Rol.usuario.name());
+        invalidacionService.invalidar(Usuario.class, savedUsuario.getId());
+        busquedaUsuarios.indexar(savedUsuario);
 
         // Enviar credenciales por email
         try {
@@ -143,6 +163,9 @@ public class UsuarioService {
         Usuario savedUsuario = usuarioRepository.save(usuario);
         log.info("✅ Usuario creado con actividad: {} (ID: {}) - Contraseña: {}", 
                  email, savedUsuario.getId(), contrasena);
+        diarioEventos.usuarioCreado(savedUsuario.getId(), email, Usuario.Rol.usuario.name());
+        invalidacionService.invalidar(Usuario.class, savedUsuario.getId());
+        busquedaUsuarios.indexar(savedUsuario);
 
         // Enviar credenciales + actividad por email
         try {
@@ -155,6 +178,8 @@ public class UsuarioService {
             log.error("❌ Error al enviar email a {}: {}", email, e.getMessage());
             // No fallar la creación si falla el email
         }
+        programarRecordatoriosTrasCommit(email, nombreN, nombreActividad,
+                sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
 
         return UsuarioDTO.UsuarioResponse.fromEntityWithPassword(savedUsuario, contrasena);
     }
@@ -162,6 +187,7 @@ public class UsuarioService {
     /**
      * Validar credenciales de usuario
      */
+    @Transactional(readOnly = true)
     public UsuarioDTO.UsuarioResponse validarCredenciales(String email, String contrasena) {
         Usuario usuario = usuarioRepository
                 .findByEmailAndContrasenaAndEstado(email, contrasena, true)
@@ -173,17 +199,22 @@ public class UsuarioService {
 
     /**
      * Obtener usuario por email
+     * Las búsquedas simultáneas del mismo email comparten una sola consulta
      */
+    @Transactional(readOnly = true)
     public UsuarioDTO.UsuarioResponse obtenerPorEmail(String email) {
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        return UsuarioDTO.UsuarioResponse.fromEntity(usuario);
+        return usuariosEnCurso.ejecutar(email, () -> {
+            Usuario usuario = usuarioRepository.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+            return UsuarioDTO.UsuarioResponse.fromEntity(usuario);
+        });
     }
 
     /**
      * Obtener todos los administradores activos
      */
+    @Transactional(readOnly = true)
     public List<UsuarioDTO.UsuarioResponse> obtenerAdministradores() {
         return usuarioRepository.findByRolAndEstado(Usuario.Rol.admin, true)
                 .stream()
@@ -215,6 +246,34 @@ public class UsuarioService {
         return "User" + inicialNombre + inicialApellido + numero;
     }
 
+    /**
+     * Los recordatorios se registran cuando el usuario ya existe y en su propia
+     * transacción: un fallo al guardarlos no debe deshacer un usuario cuyas
+     * credenciales ya salieron por correo
+     */
+    private void programarRecordatoriosTrasCommit(String email, String nombreUsuario, String nombreActividad,
+                                                  String sistemaAbrev, String equipoNombre, int trimestre,
+                                                  String fechaMaxima) {
+        Runnable programar = () -> {
+            try {
+                recordatorioService.programarActividad(email, nombreUsuario, nombreActividad,
+                        sistemaAbrev, equipoNombre, trimestre, fechaMaxima);
+            } catch (Exception e) {
+                log.error("❌ Error al registrar recordatorios para {}: {}", email, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    programar.run();
+                }
+            });
+        } else {
+            programar.run();
+        }
+    }
+
     private String normalizarNombre(String s) {
         if (s == null) return null;
         s = s.trim().toLowerCase();
@@ -0,0 +1,102 @@
+package com.sedapal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versión por recurso para GET condicionales (ETag / If-None-Match).
+ * Cada escritura incrementa la versión del recurso afectado; la comparación
+ * del ETag se resuelve en memoria sin consultar la base de datos.
+ */
+@Service
+@Slf4j
+public class VersionRecursoService {
+
+    public static final String ADMINISTRADORES = "usuarios-admin";
+
+    // Distingue los ETag emitidos por esta instancia de los de un arranque anterior
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ConcurrentHashMap<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+    // Se suma a todas las versiones: permite invalidar también los recursos aún sin contador
+    private final AtomicLong general = new AtomicLong();
+
+    public static String sistemasDeAdmin(Long idAdmin) {
+        return "admin-sistemas-" + idAdmin;
+    }
+
+    public long version(String recurso) {
+        AtomicLong v = versiones.get(recurso);
+        return general.get() + (v == null ? 0L : v.get());
+    }
+
+    /**
+     * ETag débil del estado actual del recurso. Débil porque la misma versión se
+     * sirve con y sin gzip (Tomcat no comprime respuestas con ETag fuerte)
+     */
+    public String etag(String recurso) {
+        return etag(recurso, version(recurso));
+    }
+
+    /** ETag de una versión concreta (la de una respuesta ya generada) */
+    public String etag(String recurso, long version) {
+        return "W/\"" + recurso + "-" + epoca + "-" + version + "\"";
+    }
+
+    /**
+     * Indica si alguno de los ETag de If-None-Match coincide con el actual
+     */
+    public boolean noModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        // Comparación débil (RFC 9110): se ignora el prefijo W/ en ambos lados
+        String actual = opaco(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String c = candidato.trim();
+            if (c.equals("*") || opaco(c).equals(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaco(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * Incrementar la versión del recurso; dentro de una transacción se aplica
+     * tras el commit para no publicar un ETag de datos aún no visibles.
+     */
+    public void incrementar(String recurso) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementarAhora(recurso);
+                }
+            });
+        } else {
+            incrementarAhora(recurso);
+        }
+    }
+
+    /**
+     * Invalidar todos los recursos a la vez (p. ej. si se pudieron perder avisos de
+     * otras instancias)
+     */
+    public void incrementarTodos() {
+        log.debug("🔄 Versión general -> {}", general.incrementAndGet());
+    }
+
+    private void incrementarAhora(String recurso) {
+        long v = versiones.computeIfAbsent(recurso, k -> new AtomicLong()).incrementAndGet();
+        log.debug("🔄 Versión de {} -> {}", recurso, v);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sedapal.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Recuento de sentencias SQL ejecutadas por el hilo actual mientras el ámbito está
+ * abierto (una petición, o una llamada medida en la prueba de carga). Los ámbitos se
+ * pueden anidar: cada sentencia cuenta en todos los abiertos. Lo alimenta MonitorSql.
+ */
+public final class AmbitoSql implements AutoCloseable {
+
+    private static final ThreadLocal<AmbitoSql> ACTUAL = new ThreadLocal<>();
+
+    private final AmbitoSql padre;
+    private final Map<String, Integer> porSentencia = new HashMap<>();
+    private int total;
+
+    private AmbitoSql(AmbitoSql padre) {
+        this.padre = padre;
+    }
+
+    public static AmbitoSql abrir() {
+        AmbitoSql ambito = new AmbitoSql(ACTUAL.get());
+        ACTUAL.set(ambito);
+        return ambito;
+    }
+
+    static void registrar(String sql) {
+        for (AmbitoSql a = ACTUAL.get(); a != null; a = a.padre) {
+            a.total++;
+            a.porSentencia.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public Map<String, Integer> porSentencia() {
+        return Map.copyOf(porSentencia);
+    }
+
+    /** La sentencia que más veces se repitió (candidata a N+1) */
+    public Optional<Map.Entry<String, Integer>> masRepetida() {
+        return porSentencia.entrySet().stream().max(Map.Entry.comparingByValue()).map(e -> Map.entry(e.getKey(), e.getValue()));
+    }
+
+    @Override
+    public void close() {
+        if (padre == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(padre);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.sedapal.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Proxy JDBC sobre las conexiones del pool (ver DataSourceConfig): cuenta cada
+ * sentencia ejecutada en el {@link AmbitoSql} abierto y avisa de las que superan
+ * app.sql.lenta-ms. En el log solo aparece el texto SQL: los valores enlazados nunca
+ * se leen y los literales de sentencias no preparadas se sustituyen por "?".
+ */
+@Component
+@Slf4j
+public class MonitorSql {
+
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern LITERAL_NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    @Value("${app.sql.monitor.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.sql.lenta-ms:200}")
+    private long lentaMs;
+
+    private final Counter lentas;
+
+    public MonitorSql(MeterRegistry meterRegistry) {
+        this.lentas = meterRegistry.counter("sedapal.sql.lentas");
+    }
+
+    public Connection envolver(Connection conexion) {
+        if (!habilitado) {
+            return conexion;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> {
+                    if (esIdentidad(metodo)) {
+                        return identidad(proxy, metodo, args);
+                    }
+                    Object resultado = invocar(conexion, metodo, args);
+                    return switch (metodo.getName()) {
+                        case "prepareStatement", "prepareCall" -> envolver((Statement) resultado, (String) args[0]);
+                        case "createStatement" -> envolver((Statement) resultado, null);
+                        default -> resultado;
+                    };
+                });
+    }
+
+    /** @param sql texto de la sentencia preparada; null en las no preparadas (llega en execute) */
+    private Statement envolver(Statement sentencia, String sql) {
+        Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{tipo}, (proxy, metodo, args) -> {
+                    if (esIdentidad(metodo)) {
+                        return identidad(proxy, metodo, args);
+                    }
+                    if (!metodo.getName().startsWith("execute")) {
+                        return invocar(sentencia, metodo, args);
+                    }
+                    // Las no preparadas se agrupan por su forma sin literales
+                    String clave = sql != null ? sql
+                            : args != null && args.length > 0 && args[0] instanceof String texto ? redactar(texto)
+                            : "<lote>";
+                    long inicio = System.nanoTime();
+                    try {
+                        return invocar(sentencia, metodo, args);
+                    } finally {
+                        AmbitoSql.registrar(clave);
+                        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                        if (ms >= lentaMs) {
+                            lentas.increment();
+                            log.warn("⏱️ Consulta lenta ({} ms): {}", ms, redactar(clave));
+                        }
+                    }
+                });
+    }
+
+    /** SQL en una línea y sin literales, apto para el log */
+    public static String redactar(String sql) {
+        String sinTexto = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        String sinNumeros = LITERAL_NUMERO.matcher(sinTexto).replaceAll("?");
+        return ESPACIOS.matcher(sinNumeros).replaceAll(" ").trim();
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean esIdentidad(Method metodo) {
+        return metodo.getDeclaringClass() == Object.class
+                && (metodo.getName().equals("equals") || metodo.getName().equals("hashCode"));
+    }
+
+    private static Object identidad(Object proxy, Method metodo, Object[] args) {
+        return metodo.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+}
@@ -0,0 +1,52 @@
+package com.sedapal.traza;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tramos de traza alrededor de los métodos de controlador y de los repositorios de
+ * Spring Data. Las observaciones "sedapal.traza.*" solo alimentan las trazas; sus
+ * métricas se descartan (ver TrazasConfig).
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class AspectoTrazas {
+
+    private final ObservationRegistry observationRegistry;
+
+    @Around("within(@org.springframework.web.bind.annotation.RestController *)")
+    public Object controlador(ProceedingJoinPoint pjp) throws Throwable {
+        String nombre = pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+        return observar("sedapal.traza.controlador", nombre, pjp);
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object repositorio(ProceedingJoinPoint pjp) throws Throwable {
+        // save/findById se declaran en CrudRepository: se nombra la interfaz propia del repositorio
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(pjp.getTarget());
+        String repositorio = interfaces.length > 0 ? interfaces[0].getSimpleName()
+                : pjp.getSignature().getDeclaringType().getSimpleName();
+        return observar("sedapal.traza.repositorio", repositorio + "." + pjp.getSignature().getName(), pjp);
+    }
+
+    private Object observar(String nombre, String contextual, ProceedingJoinPoint pjp) throws Throwable {
+        Observation observation = Observation.createNotStarted(nombre, observationRegistry)
+                .contextualName(contextual)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return pjp.proceed();
+        } catch (Throwable t) {
+            observation.error(t);
+            throw t;
+        } finally {
+            observation.stop();
+        }
+    }
+}
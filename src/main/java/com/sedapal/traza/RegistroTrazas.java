@@ -0,0 +1,213 @@
+package com.sedapal.traza;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trazas locales de peticiones HTTP a partir de las observaciones de Micrometer: la
+ * petición (http.server.requests) es la raíz y cada observación anidada (controlador,
+ * repositorio, conexión del pool, render y envío de correo) un tramo. Las trazas
+ * terminadas se guardan en un anillo en memoria consultable en /actuator/trazas; no hace
+ * falta colector externo. El id de la traza se devuelve en la cabecera X-Traza-Id.
+ */
+@Component
+@Slf4j
+public class RegistroTrazas implements ObservationHandler<Observation.Context> {
+
+    public static final String CABECERA = "X-Traza-Id";
+
+    /** Tramo terminado; inicioMs es relativo al inicio de la traza */
+    public record Tramo(String id, String padreId, String nombre, double inicioMs, double duracionMs,
+                        String hilo, Map<String, String> atributos, String error) {}
+
+    public record TrazaVista(String id, String nombre, Instant inicio, double duracionMs,
+                             int tramosDescartados, List<Tramo> tramos) {}
+
+    // Observaciones internas de Spring Security: no aportan al desglose y llenan la traza
+    private static final List<String> IGNORADAS = List.of("spring.security.");
+    private static final List<String> RUTAS_EXCLUIDAS = List.of("/actuator");
+
+    @Value("${app.trazas.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.trazas.max-tramos:500}")
+    private int maxTramos;
+
+    private final Traza[] anillo;
+    private long publicadas;
+
+    public RegistroTrazas(@Value("${app.trazas.capacidad:200}") int capacidad) {
+        this.anillo = new Traza[capacidad];
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return habilitado;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        String nombre = context.getName();
+        if (nombre == null || IGNORADAS.stream().anyMatch(nombre::startsWith)) {
+            return;
+        }
+        Estado padre = estadoPadre(context);
+        Estado estado;
+        if (padre == null) {
+            // Solo las peticiones HTTP abren traza; el resto de raíces (tareas programadas) se ignora
+            estado = context instanceof ServerRequestObservationContext http && !excluida(http)
+                    ? Estado.raiz(nuevoId(), http)
+                    : Estado.IGNORADO;
+        } else if (padre.traza == null) {
+            estado = Estado.IGNORADO;
+        } else {
+            estado = new Estado(padre.traza, nuevoId(), padre.id, System.nanoTime());
+        }
+        context.put(Estado.class, estado);
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Estado estado = context.get(Estado.class);
+        if (estado == null || estado.traza == null) {
+            return;
+        }
+        Traza traza = estado.traza;
+        long fin = System.nanoTime();
+        Map<String, String> atributos = new LinkedHashMap<>();
+        for (KeyValue kv : context.getAllKeyValues()) {
+            atributos.put(kv.getKey(), kv.getValue());
+        }
+        String nombre = context.getContextualName() != null ? context.getContextualName() : context.getName();
+        traza.agregar(new Tramo(estado.id, estado.padreId, nombre,
+                ms(estado.inicioNanos - traza.inicioNanos), ms(fin - estado.inicioNanos),
+                Thread.currentThread().getName(), atributos,
+                context.getError() == null ? null : context.getError().toString()), maxTramos);
+        if (estado.padreId == null) {
+            traza.terminar(nombre, ms(fin - estado.inicioNanos));
+            publicar(traza);
+        }
+    }
+
+    /** Trazas más recientes primero, opcionalmente solo las que duraron al menos minMs */
+    public List<TrazaVista> recientes(int limite, double minMs) {
+        List<TrazaVista> resultado = new ArrayList<>();
+        synchronized (anillo) {
+            for (long i = publicadas - 1; i >= 0 && i >= publicadas - anillo.length && resultado.size() < limite; i--) {
+                Traza t = anillo[(int) (i % anillo.length)];
+                if (t.duracionMs >= minMs) {
+                    resultado.add(t.vista());
+                }
+            }
+        }
+        return resultado;
+    }
+
+    public Optional<TrazaVista> buscar(String id) {
+        synchronized (anillo) {
+            for (Traza t : anillo) {
+                if (t != null && t.id.equals(id)) {
+                    return Optional.of(t.vista());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void publicar(Traza traza) {
+        synchronized (anillo) {
+            anillo[(int) (publicadas % anillo.length)] = traza;
+            publicadas++;
+        }
+    }
+
+    private static Estado estadoPadre(Observation.Context context) {
+        ObservationView padre = context.getParentObservation();
+        while (padre != null) {
+            Estado estado = padre.getContextView().get(Estado.class);
+            if (estado != null) {
+                return estado;
+            }
+            // Padre sin estado propio (observación ignorada): se sigue subiendo
+            padre = padre.getContextView().getParentObservation();
+        }
+        return null;
+    }
+
+    private static boolean excluida(ServerRequestObservationContext http) {
+        String uri = http.getCarrier().getRequestURI();
+        return RUTAS_EXCLUIDAS.stream().anyMatch(uri::startsWith);
+    }
+
+    private static String nuevoId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+    }
+
+    private static double ms(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private record Estado(Traza traza, String id, String padreId, long inicioNanos) {
+
+        static final Estado IGNORADO = new Estado(null, null, null, 0);
+
+        static Estado raiz(String id, ServerRequestObservationContext http) {
+            if (http.getResponse() != null) {
+                http.getResponse().setHeader(CABECERA, id);
+            }
+            long ahora = System.nanoTime();
+            return new Estado(new Traza(id, ahora), id, null, ahora);
+        }
+    }
+
+    /** Tramos de una traza; los de correo pueden llegar después de cerrarse la petición */
+    private static final class Traza {
+
+        private final String id;
+        private final Instant inicio = Instant.now();
+        private final long inicioNanos;
+        private final List<Tramo> tramos = new ArrayList<>();
+        private volatile String nombre;
+        private volatile double duracionMs;
+        private int descartados;
+
+        Traza(String id, long inicioNanos) {
+            this.id = id;
+            this.inicioNanos = inicioNanos;
+        }
+
+        synchronized void agregar(Tramo tramo, int max) {
+            if (tramos.size() < max) {
+                tramos.add(tramo);
+            } else {
+                descartados++;
+            }
+        }
+
+        void terminar(String nombre, double duracionMs) {
+            this.nombre = nombre;
+            this.duracionMs = duracionMs;
+        }
+
+        synchronized TrazaVista vista() {
+            List<Tramo> ordenados = new ArrayList<>(tramos);
+            ordenados.sort(Comparator.comparingDouble(Tramo::inicioMs));
+            return new TrazaVista(id, nombre, inicio, duracionMs, descartados, ordenados);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.sedapal.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.regex.Pattern;
+
+/**
+ * Identificador de la sesión del frontend (cabecera X-Cliente-Id, emitido por
+ * POST /api/notificaciones/stream/clientes) que originó una operación. Se copia del hilo de la petición al hilo de correo para poder avisar
+ * del resultado del envío por /api/notificaciones/stream.
+ */
+public final class ContextoCliente {
+
+    public static final String CABECERA = "X-Cliente-Id";
+
+    private static final Pattern VALIDO = Pattern.compile("[A-Za-z0-9_-]{8,64}");
+    private static final ThreadLocal<String> ACTUAL = new ThreadLocal<>();
+
+    private ContextoCliente() {
+    }
+
+    public static boolean valido(String clienteId) {
+        return clienteId != null && VALIDO.matcher(clienteId).matches();
+    }
+
+    /** Cliente del hilo actual: el propagado a una tarea o, si no, el de la petición en curso */
+    public static String actual() {
+        String propagado = ACTUAL.get();
+        if (propagado != null) {
+            return propagado;
+        }
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest request = servlet.getRequest();
+            String cabecera = request.getHeader(CABECERA);
+            return valido(cabecera) ? cabecera : null;
+        }
+        return null;
+    }
+
+    /** Envuelve la tarea para que vea el cliente del hilo que la programa */
+    public static Runnable propagar(Runnable tarea) {
+        String clienteId = actual();
+        if (clienteId == null) {
+            return tarea;
+        }
+        return () -> {
+            String anterior = ACTUAL.get();
+            ACTUAL.set(clienteId);
+            try {
+                tarea.run();
+            } finally {
+                if (anterior == null) {
+                    ACTUAL.remove();
+                } else {
+                    ACTUAL.set(anterior);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.sedapal.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo jerárquica: {@value #NIVELES} niveles de {@value #RANURAS} ranuras.
+ * El nivel 0 avanza una ranura por tick; cada ranura del nivel n abarca 64^n ticks y,
+ * cuando el nivel inferior da la vuelta, su contenido baja de nivel. Programar y vencer
+ * cuestan O(1) por elemento: un tick solo toca la ranura actual, nunca el conjunto
+ * completo. Con ticks de un minuto el horizonte es de unos 31 años.
+ *
+ * No es thread-safe por sí misma; quien la usa sincroniza el acceso.
+ */
+public class RuedaTemporal<T> {
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int NIVELES = 4;
+    private static final long HORIZONTE = 1L << (BITS * NIVELES);
+
+    private final long tickMs;
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Entrada<T>>[][] ranuras = new ArrayDeque[NIVELES][RANURAS];
+    private long tickActual;
+    private int tamano;
+
+    public RuedaTemporal(long tickMs, long ahoraMs) {
+        this.tickMs = tickMs;
+        this.tickActual = ahoraMs / tickMs;
+        for (ArrayDeque<Entrada<T>>[] nivel : ranuras) {
+            for (int i = 0; i < RANURAS; i++) {
+                nivel[i] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /** Elemento programado; {@link #cancelar()} lo descarta sin buscarlo en la rueda */
+    public static final class Entrada<T> {
+
+        private final long tick;
+        private final T valor;
+        private boolean cancelada;
+
+        private Entrada(long tick, T valor) {
+            this.tick = tick;
+            this.valor = valor;
+        }
+
+        public T valor() {
+            return valor;
+        }
+
+        public void cancelar() {
+            cancelada = true;
+        }
+    }
+
+    /**
+     * Programar {@code valor} para {@code instanteMs}; si ya pasó, vence en el próximo tick
+     */
+    public Entrada<T> programar(long instanteMs, T valor) {
+        Entrada<T> entrada = new Entrada<>(Math.max(instanteMs / tickMs, tickActual + 1), valor);
+        ubicar(entrada);
+        tamano++;
+        return entrada;
+    }
+
+    /**
+     * Avanzar hasta {@code ahoraMs} entregando a {@code vencidos} cada elemento cuyo
+     * instante haya llegado (los cancelados se descartan en silencio)
+     */
+    public void avanzar(long ahoraMs, Consumer<T> vencidos) {
+        long objetivo = ahoraMs / tickMs;
+        while (tickActual < objetivo) {
+            tickActual++;
+            cascada();
+            ArrayDeque<Entrada<T>> ranura = ranuras[0][(int) (tickActual & MASCARA)];
+            Entrada<T> e;
+            while ((e = ranura.poll()) != null) {
+                tamano--;
+                if (!e.cancelada) {
+                    vencidos.accept(e.valor);
+                }
+            }
+        }
+    }
+
+    /** Elementos en la rueda, incluidos los cancelados que aún no llegaron a su ranura */
+    public int tamano() {
+        return tamano;
+    }
+
+    private void cascada() {
+        for (int nivel = 1; nivel < NIVELES; nivel++) {
+            // El nivel inferior acaba de dar la vuelta: baja la ranura actual de este nivel
+            if ((tickActual & ((1L << (BITS * nivel)) - 1)) != 0) {
+                return;
+            }
+            ArrayDeque<Entrada<T>> ranura = ranuras[nivel][(int) ((tickActual >>> (BITS * nivel)) & MASCARA)];
+            List<Entrada<T>> bajando = new ArrayList<>(ranura);
+            ranura.clear();
+            for (Entrada<T> e : bajando) {
+                ubicar(e);
+            }
+        }
+    }
+
+    private void ubicar(Entrada<T> e) {
+        long delta = e.tick - tickActual;
+        if (delta >= HORIZONTE) {
+            // Fuera del horizonte: espera en la última ranura alcanzable y se reubica al bajar
+            ranuras[NIVELES - 1][(int) (((tickActual + HORIZONTE - 1) >>> (BITS * (NIVELES - 1))) & MASCARA)].add(e);
+            return;
+        }
+        int nivel = 0;
+        while (nivel < NIVELES - 1 && delta >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        if (nivel == 0) {
+            ranuras[0][(int) (e.tick & MASCARA)].add(e);
+        } else {
+            ranuras[nivel][(int) ((e.tick >>> (BITS * nivel)) & MASCARA)].add(e);
+        }
+    }
+}
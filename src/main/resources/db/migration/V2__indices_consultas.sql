@@ -0,0 +1,35 @@
+-- Índices alineados con las consultas de los repositorios.
+
+-- AdminSistemaRepository.findByIdAdminAndEstado(idAdmin, true):
+-- parcial sobre asignaciones activas e INCLUDE del resto de columnas de la
+-- entidad para que el plan sea index-only.
+CREATE INDEX IF NOT EXISTS idx_admin_sistemas_admin_activo
+    ON tb_admin_sistemas (id_admin)
+    INCLUDE (id_sistema, id_admin_sistema, fecha_asignacion)
+    WHERE estado;
+
+-- AdminSistemaRepository.findByIdSistemaAndEstado(idSistema, true)
+CREATE INDEX IF NOT EXISTS idx_admin_sistemas_sistema_activo
+    ON tb_admin_sistemas (id_sistema)
+    INCLUDE (id_admin, id_admin_sistema, fecha_asignacion)
+    WHERE estado;
+
+-- estado es booleano (baja selectividad): el índice aislado no se usa y solo
+-- encarece las escrituras. id_admin ya queda cubierto por el prefijo de
+-- uk_admin_sistema (id_admin, id_sistema). idx_admin_sistemas_sistema se
+-- mantiene para el ON DELETE CASCADE desde tb_sistemas.
+DROP INDEX IF EXISTS idx_admin_sistemas_estado;
+DROP INDEX IF EXISTS idx_admin_sistemas_admin;
+
+-- UsuarioRepository.findByRolAndEstado(rol, estado)
+CREATE INDEX IF NOT EXISTS idx_usuarios_rol_estado
+    ON tb_usuarios (rol, estado);
+
+-- Búsquedas de email sin distinguir mayúsculas
+CREATE INDEX IF NOT EXISTS idx_usuarios_email_lower
+    ON tb_usuarios (lower(email));
+
+-- findByEstado sobre tb_sistemas: tabla pequeña, se lee completa; sin índice.
+
+ANALYZE tb_usuarios;
+ANALYZE tb_admin_sistemas;
@@ -0,0 +1,19 @@
+-- Totales de correos enviados/fallidos por tipo, trimestre, sistema y equipo.
+-- Los actualiza EstadisticasNotificacionService sumando sus contadores en memoria;
+-- '' y 0 representan "no aplica" para que formen parte de la clave primaria.
+
+CREATE TABLE IF NOT EXISTS tb_estadisticas_notificacion (
+    tipo VARCHAR(40) NOT NULL,
+    trimestre SMALLINT NOT NULL DEFAULT 0,
+    sistema VARCHAR(50) NOT NULL DEFAULT '',
+    equipo VARCHAR(255) NOT NULL DEFAULT '',
+    resultado VARCHAR(10) NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    actualizado TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_estadisticas_notificacion
+        PRIMARY KEY (tipo, trimestre, sistema, equipo, resultado)
+);
+
+COMMENT ON TABLE tb_estadisticas_notificacion IS 'Resumen de notificaciones por tipo, trimestre, sistema y equipo';
+COMMENT ON COLUMN tb_estadisticas_notificacion.resultado IS 'ENVIADO o FALLIDO';
@@ -0,0 +1,27 @@
+-- Recordatorios de fecha máxima de actividades. RecordatorioService los programa en
+-- una rueda de tiempo en memoria y, al arrancar, recarga los que siguen PENDIENTE.
+
+CREATE TABLE IF NOT EXISTS tb_recordatorios (
+    id_recordatorio BIGSERIAL PRIMARY KEY,
+    email VARCHAR(255) NOT NULL,
+    nombre_usuario VARCHAR(255),
+    nombre_actividad VARCHAR(255) NOT NULL,
+    sistema_abrev VARCHAR(50),
+    equipo_nombre VARCHAR(255),
+    trimestre INTEGER NOT NULL DEFAULT 0,
+    fecha_maxima DATE NOT NULL,
+    vence_en TIMESTAMP NOT NULL,
+    estado VARCHAR(15) NOT NULL DEFAULT 'PENDIENTE',
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_envio TIMESTAMP,
+
+    CONSTRAINT uq_recordatorio UNIQUE (email, nombre_actividad, fecha_maxima, vence_en)
+);
+
+-- Solo se recargan los pendientes: índice parcial para no recorrer el histórico
+CREATE INDEX IF NOT EXISTS idx_recordatorios_pendientes
+    ON tb_recordatorios (vence_en)
+    WHERE estado = 'PENDIENTE';
+
+COMMENT ON TABLE tb_recordatorios IS 'Recordatorios de fecha máxima de actividades';
+COMMENT ON COLUMN tb_recordatorios.estado IS 'PENDIENTE, ENVIADO, FALLIDO o CANCELADO';
@@ -0,0 +1,10 @@
+-- Reclamo de recordatorios entre instancias: antes de enviar, cada instancia pasa la
+-- fila de PENDIENTE a ENVIANDO (fecha_envio = momento del reclamo) y solo envía las
+-- que consiguió. Los ENVIANDO caducados se devuelven a PENDIENTE.
+
+CREATE INDEX IF NOT EXISTS idx_recordatorios_enviando
+    ON tb_recordatorios (fecha_envio)
+    WHERE estado = 'ENVIANDO';
+
+COMMENT ON COLUMN tb_recordatorios.estado IS 'PENDIENTE, ENVIANDO, ENVIADO, FALLIDO o CANCELADO';
+COMMENT ON COLUMN tb_recordatorios.fecha_envio IS 'Envío, o reclamo mientras está ENVIANDO';
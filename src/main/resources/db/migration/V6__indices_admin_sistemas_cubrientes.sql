@@ -0,0 +1,25 @@
+-- Corrige los índices de V2.
+--
+-- Los parciales de tb_admin_sistemas no cubrían estado, que la entidad también lee,
+-- así que cada fila seguía yendo al heap: se recrean con estado en INCLUDE. Las
+-- consultas (AdminSistemaRepository.findActivasByIdAdmin / findActivasByIdSistema)
+-- usan estado = true como literal para que el planificador pueda usar el índice
+-- parcial también con el plan genérico de una sentencia preparada.
+DROP INDEX IF EXISTS idx_admin_sistemas_admin_activo;
+CREATE INDEX IF NOT EXISTS idx_admin_sistemas_admin_activo
+    ON tb_admin_sistemas (id_admin)
+    INCLUDE (id_sistema, id_admin_sistema, fecha_asignacion, estado)
+    WHERE estado;
+
+DROP INDEX IF EXISTS idx_admin_sistemas_sistema_activo;
+CREATE INDEX IF NOT EXISTS idx_admin_sistemas_sistema_activo
+    ON tb_admin_sistemas (id_sistema)
+    INCLUDE (id_admin, id_admin_sistema, fecha_asignacion, estado)
+    WHERE estado;
+
+-- Ninguna consulta compara lower(email): findByEmail, existsByEmail y el login usan
+-- igualdad exacta, ya cubierta por la restricción única de email. El índice solo
+-- encarecía las altas.
+DROP INDEX IF EXISTS idx_usuarios_email_lower;
+
+ANALYZE tb_admin_sistemas;
@@ -0,0 +1,37 @@
+package com.sedapal.carga;
+
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JavaMailSender que no conecta a ningún servidor: cuenta los mensajes y espera
+ * una latencia fija para simular al proveedor SMTP.
+ */
+class CorreoSimulado extends JavaMailSenderImpl {
+
+    private final long latenciaMs;
+    private final LongAdder enviados = new LongAdder();
+
+    CorreoSimulado(long latenciaMs) {
+        this.latenciaMs = latenciaMs;
+    }
+
+    long getEnviados() {
+        return enviados.sum();
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        enviados.add(mimeMessages.length);
+    }
+}
@@ -0,0 +1,77 @@
+package com.sedapal.carga;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Siembra tb_sistemas, tb_usuarios y tb_admin_sistemas con volúmenes configurables
+ * y conserva las claves que usa el escenario (emails, contraseñas e IDs de admin).
+ */
+class DatosCarga {
+
+    private static final int LOTE = 500;
+
+    final List<String> emails = new ArrayList<>();
+    final List<String> contrasenas = new ArrayList<>();
+    final List<Long> idsAdmin = new ArrayList<>();
+    final List<String> abrevSistemas = new ArrayList<>();
+
+    void sembrar(JdbcTemplate jdbc, int sistemas, int usuarios, int admins, int sistemasPorAdmin) {
+        Random random = new Random(42);
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 1; i <= sistemas; i++) {
+            String abrev = "SIS" + i;
+            abrevSistemas.add(abrev);
+            filas.add(new Object[]{"Sistema de carga " + i, abrev, "Administrador " + i, "Suplente " + i, 1});
+        }
+        jdbc.batchUpdate("INSERT INTO tb_sistemas (desc_sistema, abrev, administrador, suplente, estado) "
+                + "VALUES (?, ?, ?, ?, ?)", filas, LOTE, (ps, f) -> {
+            for (int c = 0; c < f.length; c++) {
+                ps.setObject(c + 1, f[c]);
+            }
+        });
+
+        filas.clear();
+        for (int i = 1; i <= admins + usuarios; i++) {
+            boolean admin = i <= admins;
+            String email = (admin ? "admin" : "usuario") + i + "@carga.sedapal.test";
+            String contrasena = "Clave" + i;
+            emails.add(email);
+            contrasenas.add(contrasena);
+            filas.add(new Object[]{"Nombre" + i, "Apellido" + i, email, contrasena,
+                    admin ? "admin" : "usuario", ahora, true});
+        }
+        jdbc.batchUpdate("INSERT INTO tb_usuarios (nombre, apellido, email, contrasena, rol, fecha_creacion, estado) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", filas, LOTE, (ps, f) -> {
+            for (int c = 0; c < f.length; c++) {
+                ps.setObject(c + 1, f[c]);
+            }
+        });
+
+        idsAdmin.addAll(jdbc.queryForList(
+                "SELECT id_usuario FROM tb_usuarios WHERE rol = 'admin' ORDER BY id_usuario", Long.class));
+        List<Long> idsSistema = jdbc.queryForList("SELECT id FROM tb_sistemas ORDER BY id", Long.class);
+
+        filas.clear();
+        for (Long idAdmin : idsAdmin) {
+            List<Long> candidatos = new ArrayList<>(idsSistema);
+            for (int k = 0; k < Math.min(sistemasPorAdmin, candidatos.size()); k++) {
+                Long idSistema = candidatos.remove(random.nextInt(candidatos.size()));
+                filas.add(new Object[]{idAdmin, idSistema, ahora, true});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO tb_admin_sistemas (id_admin, id_sistema, fecha_asignacion, estado) "
+                + "VALUES (?, ?, ?, ?)", filas, LOTE, (ps, f) -> {
+            for (int c = 0; c < f.length; c++) {
+                ps.setObject(c + 1, f[c]);
+            }
+        });
+    }
+}
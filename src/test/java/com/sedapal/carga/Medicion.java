@@ -0,0 +1,58 @@
+package com.sedapal.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latencias (histograma HDR en microsegundos) y códigos de respuesta de una operación */
+class Medicion {
+
+    private final ConcurrentHistogram latencias = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final ConcurrentHashMap<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+    private final LongAdder errores = new LongAdder();
+
+    void registrar(long nanos, int estado, boolean esperado) {
+        latencias.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latencias.getHighestTrackableValue()));
+        estados.computeIfAbsent(estado, k -> new LongAdder()).increment();
+        if (!esperado) {
+            errores.increment();
+        }
+    }
+
+    void reiniciar() {
+        latencias.reset();
+        estados.clear();
+        errores.reset();
+    }
+
+    long total() {
+        return latencias.getTotalCount();
+    }
+
+    long errores() {
+        return errores.sum();
+    }
+
+    long rechazadas() {
+        LongAdder r = estados.get(503);
+        return r == null ? 0 : r.sum();
+    }
+
+    double percentilMs(double percentil) {
+        return latencias.getValueAtPercentile(percentil) / 1000.0;
+    }
+
+    double maximoMs() {
+        return latencias.getMaxValue() / 1000.0;
+    }
+
+    Map<Integer, Long> estados() {
+        Map<Integer, Long> copia = new TreeMap<>();
+        estados.forEach((estado, n) -> copia.put(estado, n.sum()));
+        return copia;
+    }
+}
@@ -0,0 +1,51 @@
+package com.sedapal.carga;
+
+import com.sedapal.sql.AmbitoSql;
+import com.sedapal.sql.MonitorSql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Presupuesto de sentencias SQL por método de servicio. Cada llamada se mide con un
+ * {@link AmbitoSql} en el hilo actual, con datos ya sembrados y cachés en frío; si algún
+ * método supera su máximo {@link PresupuestoSqlTest} falla, de modo que una regresión de
+ * consultas (un N+1 nuevo, una carga perezosa) rompe el build en lugar de llegar a
+ * producción.
+ */
+class PresupuestoSql {
+
+    private record Medida(String metodo, int maximo, int ejecutadas, Map<String, Integer> porSentencia) {}
+
+    private final List<Medida> medidas = new ArrayList<>();
+
+    void medir(String metodo, int maximo, Runnable llamada) {
+        try (AmbitoSql ambito = AmbitoSql.abrir()) {
+            llamada.run();
+            medidas.add(new Medida(metodo, maximo, ambito.total(), ambito.porSentencia()));
+        }
+    }
+
+    /**
+     * Falla (AssertionError) si algún método se pasó; el mensaje lleva la tabla completa
+     * y las sentencias de los excedidos. Sin salida si todo está dentro del presupuesto
+     */
+    void comprobar() {
+        if (medidas.stream().noneMatch(m -> m.ejecutadas() > m.maximo())) {
+            return;
+        }
+        StringBuilder mensaje = new StringBuilder("Presupuesto de sentencias SQL excedido\n");
+        mensaje.append(String.format("%-48s %8s %8s%n", "método", "máximo", "real"));
+        for (Medida m : medidas) {
+            boolean excedido = m.ejecutadas() > m.maximo();
+            mensaje.append(String.format("%-48s %8d %8d%s%n", m.metodo(), m.maximo(), m.ejecutadas(),
+                    excedido ? "  EXCEDIDO" : ""));
+            if (excedido) {
+                m.porSentencia().forEach((sql, n) ->
+                        mensaje.append(String.format("    %3d x %s%n", n, MonitorSql.redactar(sql))));
+            }
+        }
+        throw new AssertionError(mensaje.toString());
+    }
+}
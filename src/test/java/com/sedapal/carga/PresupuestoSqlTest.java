@@ -0,0 +1,64 @@
+package com.sedapal.carga;
+
+import com.sedapal.service.AdminSistemaService;
+import com.sedapal.service.UsuarioService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+/**
+ * Presupuesto de sentencias SQL de los métodos de servicio del escenario de carga,
+ * dentro de mvn test: con el perfil "carga" (H2 en modo PostgreSQL y correo simulado)
+ * mide cada llamada con datos sembrados y cachés en frío, y falla si alguna se excede.
+ * Subir un máximo exige justificar las consultas nuevas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("carga")
+class PresupuestoSqlTest {
+
+    private static final DatosCarga datos = new DatosCarga();
+
+    @TestConfiguration
+    static class CorreoConfig {
+
+        @Bean
+        @Primary
+        JavaMailSender correoSimulado() {
+            return new CorreoSimulado(0);
+        }
+    }
+
+    @BeforeAll
+    static void sembrar(@Autowired JdbcTemplate jdbcTemplate) {
+        datos.sembrar(jdbcTemplate, 10, 50, 5, 3);
+    }
+
+    @Test
+    void metodosDeServicioDentroDelPresupuesto(@Autowired UsuarioService usuarios,
+                                                @Autowired AdminSistemaService adminSistemas) {
+        PresupuestoSql presupuesto = new PresupuestoSql();
+        presupuesto.medir("UsuarioService.validarCredenciales", 1,
+                () -> usuarios.validarCredenciales(datos.emails.get(0), datos.contrasenas.get(0)));
+        presupuesto.medir("UsuarioService.obtenerPorEmail", 1,
+                () -> usuarios.obtenerPorEmail(datos.emails.get(0)));
+        presupuesto.medir("UsuarioService.obtenerAdministradores", 1, usuarios::obtenerAdministradores);
+        presupuesto.medir("AdminSistemaService.getSistemasByAdmin", 2,
+                () -> adminSistemas.getSistemasByAdmin(datos.idsAdmin.get(0)));
+        presupuesto.medir("UsuarioService.crearUsuario", 2,
+                () -> usuarios.crearUsuario("presupuesto", "sql", "presupuesto1@carga.sedapal.test"));
+        presupuesto.medir("UsuarioService.crearUsuarioConActividad", 6,
+                () -> usuarios.crearUsuarioConActividad("presupuesto", "sql", "presupuesto2@carga.sedapal.test",
+                        "Actividad de carga", datos.abrevSistemas.get(0), "Equipo", 1,
+                        LocalDate.now().plusDays(30).toString()));
+        presupuesto.comprobar();
+    }
+}
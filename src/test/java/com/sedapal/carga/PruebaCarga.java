@@ -0,0 +1,217 @@
+package com.sedapal.carga;
+
+import com.sedapal.SedapalApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Prueba de carga sin Supabase: arranca SedapalApplication con el perfil "carga"
+ * (H2 en modo PostgreSQL y correo simulado), siembra datos y ejecuta un escenario
+ * mixto de login, alta de usuarios, consultas de admin-sistemas y notificaciones.
+ * El presupuesto de sentencias SQL de estos métodos se comprueba en mvn test
+ * ({@link PresupuestoSqlTest}). Al terminar imprime rendimiento y percentiles de latencia por operación.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dcarga.concurrencia=64 -Dcarga.duracion=60s
+ * </pre>
+ *
+ * Parámetros (-D): carga.usuarios, carga.admins, carga.sistemas, carga.sistemas-por-admin,
+ * carga.concurrencia, carga.duracion, carga.calentamiento, carga.mail-latencia-ms.
+ */
+public class PruebaCarga {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Map<String, Operacion> operaciones = new LinkedHashMap<>();
+
+    private String base;
+    private DatosCarga datos;
+
+    public static void main(String[] args) throws Exception {
+        new PruebaCarga().ejecutar(args);
+    }
+
+    private void ejecutar(String[] args) throws Exception {
+        int usuarios = Integer.getInteger("carga.usuarios", 2000);
+        int admins = Integer.getInteger("carga.admins", 40);
+        int sistemas = Integer.getInteger("carga.sistemas", 60);
+        int sistemasPorAdmin = Integer.getInteger("carga.sistemas-por-admin", 3);
+        int concurrencia = Integer.getInteger("carga.concurrencia", 32);
+        Duration duracion = DurationStyle.detectAndParse(System.getProperty("carga.duracion", "30s"));
+        Duration calentamiento = DurationStyle.detectAndParse(System.getProperty("carga.calentamiento", "5s"));
+        CorreoSimulado correo = new CorreoSimulado(Long.getLong("carga.mail-latencia-ms", 50));
+
+        SpringApplication app = new SpringApplication(SedapalApplication.class);
+        app.setAdditionalProfiles("carga");
+        app.addInitializers(ctx -> ((GenericApplicationContext) ctx).registerBean(
+                "javaMailSender", JavaMailSender.class, () -> correo, bd -> bd.setPrimary(true)));
+
+        try (ConfigurableApplicationContext ctx = app.run(args)) {
+            base = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+
+            datos = new DatosCarga();
+            datos.sembrar(ctx.getBean(JdbcTemplate.class), sistemas, usuarios, admins, sistemasPorAdmin);
+            System.out.printf("%nDatos: %d sistemas, %d usuarios, %d admins (%d sistemas c/u)%n",
+                    sistemas, usuarios, admins, sistemasPorAdmin);
+
+            definirOperaciones();
+
+            System.out.printf("Calentamiento %ds con %d clientes...%n", calentamiento.toSeconds(), concurrencia);
+            correr(concurrencia, calentamiento);
+            operaciones.values().forEach(op -> op.medicion.reiniciar());
+
+            Statistics stats = ctx.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            long sentenciasAntes = stats.getPrepareStatementCount();
+            long correosAntes = correo.getEnviados();
+
+            System.out.printf("Medición %ds con %d clientes...%n", duracion.toSeconds(), concurrencia);
+            long inicio = System.nanoTime();
+            correr(concurrencia, duracion);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            informe(segundos,
+                    stats.getPrepareStatementCount() - sentenciasAntes,
+                    correo.getEnviados() - correosAntes);
+        }
+    }
+
+    /** Peso relativo de cada operación en el escenario y los códigos que se consideran correctos */
+    private void definirOperaciones() {
+        operaciones.put("login", new Operacion(40, r -> {
+            int i = r.nextInt(datos.emails.size());
+            // Uno de cada diez intentos con contraseña errónea
+            String contrasena = r.nextInt(10) == 0 ? "incorrecta" : datos.contrasenas.get(i);
+            return post("/api/usuarios/validar",
+                    "{\"email\":\"" + datos.emails.get(i) + "\",\"contrasena\":\"" + contrasena + "\"}");
+        }, 200, 401));
+        operaciones.put("obtener-usuario", new Operacion(20, r ->
+                get("/api/usuarios/" + datos.emails.get(r.nextInt(datos.emails.size()))), 200));
+        operaciones.put("sistemas-admin", new Operacion(20, r ->
+                get("/api/admin-sistemas/admin/" + datos.idsAdmin.get(r.nextInt(datos.idsAdmin.size()))), 200));
+        operaciones.put("listar-admins", new Operacion(5, r -> get("/api/usuarios/admin/all"), 200));
+        operaciones.put("crear-usuario", new Operacion(10, r -> {
+            long n = secuencia.incrementAndGet();
+            return post("/api/usuarios/usuario", "{\"nombre\":\"carga " + n + "\",\"apellido\":\"prueba\","
+                    + "\"email\":\"nuevo" + n + "@carga.sedapal.test\"}");
+        }, 201));
+        operaciones.put("notificacion", new Operacion(5, r -> {
+            String email = datos.emails.get(r.nextInt(datos.emails.size()));
+            String abrev = datos.abrevSistemas.get(r.nextInt(datos.abrevSistemas.size()));
+            return post("/api/notificaciones/actividad-asignada", "{\"email\":\"" + email + "\","
+                    + "\"nombreUsuario\":\"Usuario\",\"nombreActividad\":\"Actividad de carga\","
+                    + "\"sistemaAbrev\":\"" + abrev + "\",\"equipoNombre\":\"Equipo\","
+                    + "\"trimestre\":1,\"fechaMaxima\":\"2025-12-31\"}");
+        }, 200));
+    }
+
+    private void correr(int concurrencia, Duration duracion) throws InterruptedException {
+        List<Operacion> ruleta = new ArrayList<>();
+        for (Operacion op : operaciones.values()) {
+            for (int i = 0; i < op.peso; i++) {
+                ruleta.add(op);
+            }
+        }
+        long fin = System.nanoTime() + duracion.toNanos();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrencia; c++) {
+                clientes.submit(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fin) {
+                        ruleta.get(r.nextInt(ruleta.size())).invocar(r);
+                    }
+                });
+            }
+        }
+    }
+
+    private void informe(double segundos, long sentencias, long correos) {
+        System.out.println();
+        System.out.printf("%-16s %8s %9s %7s %7s %9s %9s %9s %9s  %s%n",
+                "operación", "total", "req/s", "errores", "503", "p50 ms", "p95 ms", "p99 ms", "máx ms", "estados");
+        long total = 0;
+        long errores = 0;
+        for (Map.Entry<String, Operacion> e : operaciones.entrySet()) {
+            Medicion m = e.getValue().medicion;
+            total += m.total();
+            errores += m.errores();
+            System.out.printf("%-16s %8d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    e.getKey(), m.total(), m.total() / segundos, m.errores(), m.rechazadas(),
+                    m.percentilMs(50), m.percentilMs(95), m.percentilMs(99), m.maximoMs(), m.estados());
+        }
+        System.out.printf("%nTotal: %d peticiones en %.1fs (%.1f req/s), %d errores%n",
+                total, segundos, total / segundos, errores);
+        System.out.printf("Sentencias SQL preparadas: %d (%.2f por petición), correos simulados: %d%n",
+                sentencias, total == 0 ? 0.0 : (double) sentencias / total, correos);
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String ruta, String json) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private class Operacion {
+
+        final int peso;
+        final Function<ThreadLocalRandom, HttpRequest> peticion;
+        final int[] esperados;
+        final Medicion medicion = new Medicion();
+
+        Operacion(int peso, Function<ThreadLocalRandom, HttpRequest> peticion, int... esperados) {
+            this.peso = peso;
+            this.peticion = peticion;
+            this.esperados = esperados;
+        }
+
+        void invocar(ThreadLocalRandom r) {
+            HttpRequest request = peticion.apply(r);
+            long inicio = System.nanoTime();
+            int estado;
+            try {
+                estado = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                estado = -1;
+            }
+            long nanos = System.nanoTime() - inicio;
+            boolean esperado = false;
+            for (int e : esperados) {
+                esperado |= e == estado;
+            }
+            medicion.registrar(nanos, estado, esperado);
+        }
+    }
+}